@@ -0,0 +1,119 @@
+-- Сравнение прежней и компактной схемы таблицы cards (changeset alter-table-cards-compact-layout.sql)
+-- на 10 млн строк. Запуск на отдельной базе PostgreSQL:
+--   psql -v ON_ERROR_STOP=1 -f docs/cards-compact-layout-benchmark.sql
+-- Скрипт работает в схеме bench и удаляет ее в конце.
+
+\timing on
+CREATE SCHEMA bench;
+SET search_path = bench;
+
+-- Прежняя схема: номер строкой с пробелами, статус именем константы, срок строкой MM/yy и датой
+CREATE TABLE cards_before (
+    id BIGINT NOT NULL PRIMARY KEY,
+    card_number VARCHAR(19) NOT NULL,
+    user_id BIGINT NOT NULL,
+    card_validity_period VARCHAR(5) NOT NULL,
+    card_status VARCHAR(7) NOT NULL,
+    balance BIGINT NOT NULL,
+    version BIGINT NOT NULL,
+    expires_on DATE,
+    CONSTRAINT uq_before_card_number UNIQUE (card_number)
+);
+
+-- Компактная схема
+CREATE TABLE cards_after (
+    id BIGINT NOT NULL PRIMARY KEY,
+    card_number BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    card_status SMALLINT NOT NULL,
+    balance BIGINT NOT NULL,
+    version BIGINT NOT NULL,
+    expires_on DATE NOT NULL,
+    CONSTRAINT uq_after_card_number UNIQUE (card_number)
+);
+
+INSERT INTO cards_before
+SELECT i,
+       to_char(4000000000000000 + i * 7919, 'FM0000" "0000" "0000" "0000'),
+       i % 100000,
+       to_char(1 + i % 12, 'FM00') || '/' || to_char(26 + i % 5, 'FM00'),
+       (ARRAY['ACTIVE', 'BLOCKED', 'EXPIRED'])[1 + i % 3],
+       i % 1000000,
+       0,
+       (make_date(2026 + i % 5, 1 + i % 12, 1) + INTERVAL '1 month' - INTERVAL '1 day')::date
+FROM generate_series(1, 10000000) AS i;
+
+INSERT INTO cards_after
+SELECT id,
+       replace(card_number, ' ', '')::bigint,
+       user_id,
+       CASE card_status WHEN 'ACTIVE' THEN 1 WHEN 'BLOCKED' THEN 2 ELSE 3 END,
+       balance,
+       version,
+       expires_on
+FROM cards_before;
+
+-- Те же вторичные индексы, что у cards до и после миграции
+CREATE INDEX ON cards_before (user_id, id);
+CREATE INDEX ON cards_before (card_status, id);
+CREATE INDEX ON cards_before (user_id, card_status, id);
+CREATE INDEX ON cards_before (card_validity_period, id);
+CREATE INDEX ON cards_before (expires_on, id);
+
+CREATE INDEX ON cards_after (user_id, id);
+CREATE INDEX ON cards_after (card_status, id);
+CREATE INDEX ON cards_after (user_id, card_status, id);
+CREATE INDEX ON cards_after (expires_on, id);
+
+VACUUM ANALYZE cards_before;
+VACUUM ANALYZE cards_after;
+
+-- Размеры кучи, первичного ключа и всех индексов
+SELECT relname,
+       pg_size_pretty(pg_relation_size(oid)) AS heap,
+       pg_size_pretty(pg_relation_size((relname || '_pkey')::regclass)) AS pk,
+       pg_size_pretty(pg_indexes_size(oid)) AS all_indexes
+FROM pg_class
+WHERE relnamespace = 'bench'::regnamespace AND relname IN ('cards_before', 'cards_after');
+
+-- Уникальный индекс по номеру карты
+SELECT indexrelid::regclass AS index, pg_size_pretty(pg_relation_size(indexrelid)) AS size
+FROM pg_index
+WHERE indexrelid IN ('uq_before_card_number'::regclass, 'uq_after_card_number'::regclass);
+
+-- План и буферы одного поиска карты по номеру, как в findByCardNumber
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM cards_before WHERE card_number = to_char(4000000000000000 + 5000000 * 7919,
+                                                       'FM0000" "0000" "0000" "0000');
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM cards_after WHERE card_number = 4000000000000000 + 5000000 * 7919;
+
+-- Средняя задержка поиска по номеру на 100 тыс. случайных карт (номера в обоих форматах готовятся заранее,
+-- чтобы замер не включал форматирование)
+CREATE TEMP TABLE probes AS
+SELECT pan, to_char(pan, 'FM0000" "0000" "0000" "0000') AS pan_text
+FROM (SELECT 4000000000000000 + (1 + floor(random() * 10000000)::bigint) * 7919 AS pan
+      FROM generate_series(1, 100000)) AS p;
+
+DO $$
+DECLARE
+    probe RECORD;
+    started TIMESTAMPTZ;
+    found BIGINT;
+BEGIN
+    started := clock_timestamp();
+    FOR probe IN SELECT pan_text FROM probes LOOP
+        SELECT id INTO found FROM cards_before WHERE card_number = probe.pan_text;
+    END LOOP;
+    RAISE NOTICE 'before: % us per lookup', extract(epoch FROM clock_timestamp() - started) * 1e6 / 100000;
+
+    started := clock_timestamp();
+    FOR probe IN SELECT pan FROM probes LOOP
+        SELECT id INTO found FROM cards_after WHERE card_number = probe.pan;
+    END LOOP;
+    RAISE NOTICE 'after: % us per lookup', extract(epoch FROM clock_timestamp() - started) * 1e6 / 100000;
+END
+$$;
+
+RESET search_path;
+DROP SCHEMA bench CASCADE;
@@ -0,0 +1,21 @@
+package com.example.bankcards.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "bank.card-expiry")
+public class CardExpiryProperties {
+    private Duration sweepInterval = Duration.ofHours(1);
+
+    /**
+     * Сколько карт переводится в EXPIRED одной транзакцией.
+     */
+    private int batchSize = 1_000;
+}
@@ -0,0 +1,17 @@
+package com.example.bankcards.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "bank.card-import")
+public class CardImportProperties {
+    /**
+     * Сколько строк файла проверяется и фиксируется одной транзакцией. В памяти держится не больше одной порции.
+     */
+    private int chunkSize = 1_000;
+}
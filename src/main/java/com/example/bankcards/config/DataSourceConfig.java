@@ -0,0 +1,40 @@
+package com.example.bankcards.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * Spring Boot не создает JDBC DataSource, если в контексте есть R2DBC ConnectionFactory. JPA и Liquibase
+ * по-прежнему работают через JDBC, поэтому пул Hikari объявлен явно по настройкам {@code spring.datasource}.
+ * <p>
+ * Каждое новое соединение с PostgreSQL получает {@code lock_timeout} из {@code bank.transfer.lock-timeout}:
+ * ожидание блокировки ограничено без лишнего запроса в каждой транзакции. В H2 то же задает {@code LOCK_TIMEOUT}
+ * в URL.
+ */
+@Configuration
+public class DataSourceConfig {
+    @Bean
+    @Primary
+    @ConfigurationProperties("spring.datasource")
+    public DataSourceProperties dataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    @Bean
+    @Primary
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties dataSourceProperties,
+                                       TransferProperties transferProperties) {
+        HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        if (dataSourceProperties.determineUrl().startsWith("jdbc:postgresql:")) {
+            dataSource.setConnectionInitSql("SET lock_timeout = " + transferProperties.getLockTimeout().toMillis());
+        }
+        return dataSource;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.bankcards.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "bank.idempotency")
+public class IdempotencyProperties {
+    private int cacheSize = 10_000;
+
+    private Duration cacheTtl = Duration.ofMinutes(10);
+
+    private Duration retention = Duration.ofHours(24);
+}
@@ -0,0 +1,30 @@
+package com.example.bankcards.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "bank.jwt")
+public class JwtProperties {
+    /**
+     * Восстанавливать пользователя из проверенных claims токена без обращения к таблице users.
+     */
+    private boolean statelessPrincipal = false;
+
+    private boolean tokenCacheEnabled = true;
+
+    private int tokenCacheSize = 100_000;
+
+    private int revocationCacheSize = 100_000;
+
+    /**
+     * Сколько узел помнит результат проверки отзыва; столько же отзыв на другом узле может оставаться незамеченным.
+     */
+    private Duration revocationCacheTtl = Duration.ofSeconds(30);
+}
@@ -0,0 +1,21 @@
+package com.example.bankcards.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "bank.listing")
+public class ListingProperties {
+    private int countCacheSize = 1_000;
+
+    /**
+     * Сколько живёт посчитанное общее число строк; в пределах ttl оно может отставать от таблицы.
+     */
+    private Duration countCacheTtl = Duration.ofSeconds(30);
+}
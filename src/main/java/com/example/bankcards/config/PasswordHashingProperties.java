@@ -0,0 +1,26 @@
+package com.example.bankcards.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "bank.password-hashing")
+public class PasswordHashingProperties {
+    /**
+     * Сколько паролей хешируется одновременно; по умолчанию по числу процессоров.
+     */
+    private int maxConcurrent = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Сколько запрос ждет свободное разрешение, прежде чем получить 503.
+     */
+    private Duration acquireTimeout = Duration.ofMillis(100);
+
+    private Duration retryAfter = Duration.ofSeconds(1);
+}
@@ -0,0 +1,44 @@
+package com.example.bankcards.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "bank.transfer")
+public class TransferProperties {
+    private Mode mode = Mode.CONDITIONAL;
+
+    /**
+     * Сколько запрос ждет блокировку строки, прежде чем попытка считается конфликтом. В PostgreSQL задается
+     * как {@code lock_timeout} каждого соединения пула.
+     */
+    private Duration lockTimeout = Duration.ofSeconds(2);
+
+    /**
+     * Срок всей транзакции перевода; {@code 0} снимает ограничение.
+     */
+    private Duration timeout = Duration.ofSeconds(5);
+
+    /**
+     * Срок транзакции пакетного перевода ({@code POST /user/cards/transfers/batch}); {@code 0} снимает ограничение.
+     */
+    private Duration batchTimeout = Duration.ofSeconds(30);
+
+    private int maxAttempts = 3;
+
+    private Duration backoff = Duration.ofMillis(10);
+
+    private Duration maxBackoff = Duration.ofMillis(200);
+
+    public enum Mode {
+        CONDITIONAL,
+        PESSIMISTIC,
+        OPTIMISTIC
+    }
+}
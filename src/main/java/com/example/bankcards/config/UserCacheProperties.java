@@ -0,0 +1,18 @@
+package com.example.bankcards.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "bank.user-cache")
+public class UserCacheProperties {
+    private int maximumSize = 10_000;
+
+    private Duration ttl = Duration.ofMinutes(5);
+}
@@ -6,14 +6,29 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.CardIssueResultDto;
+import com.example.bankcards.dto.CardStatusUpdateDto;
+import com.example.bankcards.dto.CardWindow;
+import com.example.bankcards.dto.NewCardBatchRequest;
 import com.example.bankcards.dto.NewCardDto;
 import com.example.bankcards.dto.UserDto;
+import com.example.bankcards.service.CardExportService;
+import com.example.bankcards.service.CardImportService;
+import com.example.bankcards.service.CardIssuanceService;
 import com.example.bankcards.service.CardService;
 import com.example.bankcards.service.UserService;
 
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -22,7 +37,13 @@ import java.util.List;
 @RequiredArgsConstructor
 @Tag(name = "Возможности админа")
 public class AdminController {
+    static final String HAS_NEXT_HEADER = "X-Has-Next";
+    static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+
     private final CardService cardService;
+    private final CardExportService cardExportService;
+    private final CardImportService cardImportService;
+    private final CardIssuanceService cardIssuanceService;
     private final UserService userService;
 
     @Operation(summary = "Создание карты")
@@ -32,6 +53,52 @@ public class AdminController {
         return cardService.createCard(newCard);
     }
 
+    @Operation(summary = "Пакетный выпуск карт")
+    @PostMapping("/cards/bulk")
+    public List<CardIssueResultDto> createCards(@Valid @RequestBody NewCardBatchRequest request) {
+        return cardIssuanceService.createCards(request.getCards());
+    }
+
+    @Operation(summary = "Импорт карт из CSV с отчетом об обработке")
+    @PostMapping(value = "/cards/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<StreamingResponseBody> importCards(
+                        @Parameter(name = "file", description = "CSV: cardNumber,cardholder,cardValidityPeriod")
+                        @RequestParam MultipartFile file) {
+        return ResponseEntity.ok()
+                .contentType(CardImportService.REPORT_MEDIA_TYPE)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("import-report.csv")
+                        .build()
+                        .toString())
+                .body(outputStream -> {
+                    try (InputStream inputStream = file.getInputStream()) {
+                        cardImportService.importCards(inputStream, outputStream);
+                    }
+                });
+    }
+
+    @Operation(summary = "Блокировка всех активных карт под фильтром")
+    @PatchMapping("/cards/block")
+    public CardStatusUpdateDto blockCards(@Parameter(name = "username") @RequestParam(defaultValue = "") String username,
+                                          @Parameter(name = "numberPrefix", description = "Начало номера карты "
+                                                  + "в группировке 4-4-4-4, например 2222 1111")
+                                          @RequestParam(defaultValue = "") String numberPrefix,
+                                          @Parameter(name = "cardValidityPeriod")
+                                          @RequestParam(defaultValue = "") String cardValidityPeriod) {
+        return cardService.blockCards(username, numberPrefix, cardValidityPeriod);
+    }
+
+    @Operation(summary = "Активация всех заблокированных карт под фильтром")
+    @PatchMapping("/cards/activate")
+    public CardStatusUpdateDto activateCards(@Parameter(name = "username") @RequestParam(defaultValue = "") String username,
+                                             @Parameter(name = "numberPrefix", description = "Начало номера карты "
+                                                     + "в группировке 4-4-4-4, например 2222 1111")
+                                             @RequestParam(defaultValue = "") String numberPrefix,
+                                             @Parameter(name = "cardValidityPeriod")
+                                             @RequestParam(defaultValue = "") String cardValidityPeriod) {
+        return cardService.activateCards(username, numberPrefix, cardValidityPeriod);
+    }
+
     @Operation(summary = "Блокировка карты")
     @PatchMapping("/cards/{cardNumber}/block")
     public CardDto blockCard(@PathVariable String cardNumber) {
@@ -53,11 +120,15 @@ public class AdminController {
 
     @Operation(summary = "Получение пользователей")
     @GetMapping("/users")
-    public List<UserDto> getUsers(@Parameter(name = "page") @RequestParam(defaultValue = "0") int page,
-                                  @Parameter(name = "size") @RequestParam(defaultValue = "10") int size,
-                                  @Parameter(name = "sortBy") @RequestParam(defaultValue = "id") String sortBy,
-                                  @Parameter(name = "sortMode") @RequestParam(defaultValue = "asc") String sortMode) {
-        return userService.getUsers(page, size, sortBy, sortMode);
+    public ResponseEntity<List<UserDto>> getUsers(@Parameter(name = "page") @RequestParam(defaultValue = "0") int page,
+                                                  @Parameter(name = "size") @RequestParam(defaultValue = "10") int size,
+                                                  @Parameter(name = "sortBy") @RequestParam(defaultValue = "id") String sortBy,
+                                                  @Parameter(name = "sortMode") @RequestParam(defaultValue = "asc") String sortMode,
+                                                  @Parameter(name = "withTotal", description = "Вернуть общее число "
+                                                          + "пользователей в X-Total-Count (значение кэшируется)")
+                                                  @RequestParam(defaultValue = "false") boolean withTotal) {
+        return toResponse(userService.getUsers(page, size, sortBy, sortMode),
+                withTotal ? userService.countUsers() : null);
     }
 
     @Operation(summary = "Удаление пользователя")
@@ -69,12 +140,62 @@ public class AdminController {
 
     @Operation(summary = "Получение карт")
     @GetMapping("/cards")
-    public List<CardDto> getCards(@Parameter(name = "username") @RequestParam(defaultValue = "") String username,
-                                  @Parameter(name = "cardStatus") @RequestParam(defaultValue = "") String cardStatus,
-                                  @Parameter(name = "page") @RequestParam(defaultValue = "0") int page,
-                                  @Parameter(name = "size") @RequestParam(defaultValue = "10") int size,
-                                  @Parameter(name = "sortBy") @RequestParam(defaultValue = "id") String sortBy,
-                                  @Parameter(name = "sortMode") @RequestParam(defaultValue = "asc") String sortMode) {
-        return cardService.getCards(username, cardStatus, page, size, sortBy, sortMode);
+    public ResponseEntity<List<CardDto>> getCards(@Parameter(name = "username") @RequestParam(defaultValue = "") String username,
+                                                  @Parameter(name = "cardStatus") @RequestParam(defaultValue = "") String cardStatus,
+                                                  @Parameter(name = "page") @RequestParam(defaultValue = "0") int page,
+                                                  @Parameter(name = "size") @RequestParam(defaultValue = "10") int size,
+                                                  @Parameter(name = "sortBy") @RequestParam(defaultValue = "id") String sortBy,
+                                                  @Parameter(name = "sortMode") @RequestParam(defaultValue = "asc") String sortMode,
+                                                  @Parameter(name = "after", description = "Курсор из заголовка X-Next-Cursor; "
+                                                          + "пустое значение открывает первое окно, page при этом не учитывается")
+                                                  @RequestParam(required = false) String after,
+                                                  @Parameter(name = "withTotal", description = "Вернуть общее число "
+                                                          + "карт под фильтром в X-Total-Count (значение кэшируется)")
+                                                  @RequestParam(defaultValue = "false") boolean withTotal) {
+        if (after == null) {
+            return toResponse(cardService.getCards(username, cardStatus, page, size, sortBy, sortMode),
+                    withTotal ? cardService.countCards(username, cardStatus) : null);
+        }
+        return toResponse(cardService.getCards(username, cardStatus, size, sortBy, sortMode, after));
+    }
+
+    @Operation(summary = "Получение действующих карт, срок которых истекает в ближайшие дни")
+    @GetMapping("/cards/expiring")
+    public ResponseEntity<List<CardDto>> getExpiringCards(@Parameter(name = "days") @RequestParam(defaultValue = "30") int days,
+                                                          @Parameter(name = "page") @RequestParam(defaultValue = "0") int page,
+                                                          @Parameter(name = "size") @RequestParam(defaultValue = "10") int size) {
+        return toResponse(cardService.getExpiringCards(days, page, size), null);
+    }
+
+    @Operation(summary = "Выгрузка всех карт в формате NDJSON или CSV")
+    @GetMapping("/cards/export")
+    public ResponseEntity<StreamingResponseBody> exportCards(
+                        @Parameter(name = "format", description = "ndjson или csv")
+                        @RequestParam(defaultValue = "ndjson") String format) {
+        CardExportService.Format exportFormat = CardExportService.Format.of(format);
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("cards." + exportFormat.getExtension())
+                        .build()
+                        .toString())
+                .body(outputStream -> cardExportService.export(exportFormat, outputStream));
+    }
+
+    private static ResponseEntity<List<CardDto>> toResponse(CardWindow window) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (window.getNextCursor() != null) {
+            response.header(CardWindow.NEXT_CURSOR_HEADER, window.getNextCursor());
+        }
+        return response.body(window.getCards());
+    }
+
+    private static <T> ResponseEntity<List<T>> toResponse(Slice<T> slice, Long total) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header(HAS_NEXT_HEADER, String.valueOf(slice.hasNext()));
+        if (total != null) {
+            response.header(TOTAL_COUNT_HEADER, String.valueOf(total));
+        }
+        return response.body(slice.getContent());
     }
 }
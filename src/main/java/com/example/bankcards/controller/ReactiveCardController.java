@@ -0,0 +1,51 @@
+package com.example.bankcards.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.service.ReactiveCardService;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+
+@RestController
+@RequiredArgsConstructor
+@Tag(name = "Неблокирующее чтение карт")
+public class ReactiveCardController {
+    private final ReactiveCardService reactiveCardService;
+
+    @Operation(summary = "Получение карт пользователя")
+    @GetMapping("/user/reactive/cards")
+    @PreAuthorize("hasAuthority('USER')")
+    public Flux<CardDto> getCardsUser(@Parameter(name = "page") @RequestParam(defaultValue = "0") int page,
+                                      @Parameter(name = "size") @RequestParam(defaultValue = "10") int size,
+                                      @Parameter(name = "sortBy") @RequestParam(defaultValue = "id") String sortBy,
+                                      @Parameter(name = "sortMode") @RequestParam(defaultValue = "asc")
+                                      String sortMode) {
+        return reactiveCardService.getCardsUser(page, size, sortBy, sortMode);
+    }
+
+    @Operation(summary = "Получение баланса")
+    @GetMapping("/user/reactive/cards/{cardNumber}/balance")
+    @PreAuthorize("hasAuthority('USER')")
+    public Mono<BigDecimal> getBalance(@Parameter(name = "cardNumber") @PathVariable String cardNumber) {
+        return reactiveCardService.getBalance(cardNumber);
+    }
+
+    @Operation(summary = "Получение карт")
+    @GetMapping("/admin/reactive/cards")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public Flux<CardDto> getCards(@Parameter(name = "username") @RequestParam(defaultValue = "") String username,
+                                  @Parameter(name = "cardStatus") @RequestParam(defaultValue = "") String cardStatus,
+                                  @Parameter(name = "page") @RequestParam(defaultValue = "0") int page,
+                                  @Parameter(name = "size") @RequestParam(defaultValue = "10") int size,
+                                  @Parameter(name = "sortBy") @RequestParam(defaultValue = "id") String sortBy,
+                                  @Parameter(name = "sortMode") @RequestParam(defaultValue = "asc") String sortMode) {
+        return reactiveCardService.getCards(username, cardStatus, page, size, sortBy, sortMode);
+    }
+}
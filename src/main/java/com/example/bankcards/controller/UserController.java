@@ -3,13 +3,20 @@ package com.example.bankcards.controller;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.CardWindow;
+import com.example.bankcards.dto.TransferBatchRequest;
+import com.example.bankcards.dto.TransferResultDto;
 import com.example.bankcards.service.CardService;
+import com.example.bankcards.util.Money;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 @RestController
@@ -22,11 +29,17 @@ public class UserController {
 
     @Operation(summary = "Получение карт")
     @GetMapping("/cards")
-    public List<CardDto> getCards(@Parameter(name = "page") @RequestParam(defaultValue = "0") int page,
-                                  @Parameter(name = "size") @RequestParam(defaultValue = "10") int size,
-                                  @Parameter(name = "sortBy") @RequestParam(defaultValue = "id") String sortBy,
-                                  @Parameter(name = "sortMode") @RequestParam(defaultValue = "asc") String sortMode) {
-        return cardService.getCardsUser(page, size, sortBy, sortMode);
+    public ResponseEntity<List<CardDto>> getCards(@Parameter(name = "page") @RequestParam(defaultValue = "0") int page,
+                                                  @Parameter(name = "size") @RequestParam(defaultValue = "10") int size,
+                                                  @Parameter(name = "sortBy") @RequestParam(defaultValue = "id") String sortBy,
+                                                  @Parameter(name = "sortMode") @RequestParam(defaultValue = "asc") String sortMode,
+                                                  @Parameter(name = "after", description = "Курсор из заголовка X-Next-Cursor; "
+                                                          + "пустое значение открывает первое окно, page при этом не учитывается")
+                                                  @RequestParam(required = false) String after) {
+        if (after == null) {
+            return ResponseEntity.ok(cardService.getCardsUser(page, size, sortBy, sortMode));
+        }
+        return toResponse(cardService.getCardsUser(size, sortBy, sortMode, after));
     }
 
     @Operation(summary = "Перевод между картами одного пользователя")
@@ -35,13 +48,25 @@ public class UserController {
     public void transfersBetweenCards(
                         @Parameter(name = "cardNumberSender") @PathVariable String cardNumberSender,
                         @Parameter(name = "cardNumberRecipient") @PathVariable String cardNumberRecipient,
-                        @Parameter(name = "amount") @PathVariable double amount) {
-        cardService.transfersBetweenCards(cardNumberSender, cardNumberRecipient, amount);
+                        @Parameter(name = "amount", example = "12.34") @PathVariable String amount,
+                        @Parameter(name = "Idempotency-Key", description = "Ключ для безопасного повтора "
+                                + "перевода. Повтор с тем же ключом возвращает сохраненный исход, в том числе "
+                                + "отказ (404, 403, 400); отказ по тайм-ауту или после исчерпанных попыток ключ "
+                                + "не занимает")
+                        @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey) {
+        cardService.transfersBetweenCards(cardNumberSender, cardNumberRecipient, Money.parse(amount),
+                idempotencyKey);
+    }
+
+    @Operation(summary = "Пакетный перевод между картами одного пользователя")
+    @PostMapping("/cards/transfers/batch")
+    public List<TransferResultDto> transfersBetweenCards(@Valid @RequestBody TransferBatchRequest request) {
+        return cardService.transfersBetweenCards(request.getTransfers());
     }
 
     @Operation(summary = "Получение баланса")
     @GetMapping("/cards/{cardNumber}/balance")
-    public double getBalance(@Parameter(name = "cardNumber") @PathVariable String cardNumber) {
+    public BigDecimal getBalance(@Parameter(name = "cardNumber") @PathVariable String cardNumber) {
         return cardService.getBalance(cardNumber);
     }
 
@@ -50,4 +75,12 @@ public class UserController {
     public CardDto blockCard(@Parameter(name = "cardNumber") @PathVariable String cardNumber) {
         return cardService.blockCard(cardNumber);
     }
+
+    private static ResponseEntity<List<CardDto>> toResponse(CardWindow window) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (window.getNextCursor() != null) {
+            response.header(CardWindow.NEXT_CURSOR_HEADER, window.getNextCursor());
+        }
+        return response.body(window.getCards());
+    }
 }
@@ -5,6 +5,9 @@ import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.util.Money;
+
+import java.math.BigDecimal;
 
 @Getter
 @AllArgsConstructor
@@ -26,7 +29,15 @@ public class CardDto {
     private CardStatus cardStatus;
 
     @Schema(description = "Баланс", example = "12.34")
-    private double balance;
+    private BigDecimal balance;
+
+    /**
+     * Конструктор для JPQL-проекций: баланс приходит из БД в копейках.
+     */
+    public CardDto(String cardNumber, String cardholder, String cardValidityPeriod, CardStatus cardStatus,
+                   long balance) {
+        this(cardNumber, cardholder, cardValidityPeriod, cardStatus, Money.toDecimal(balance));
+    }
 
     @Override
     public String toString() {
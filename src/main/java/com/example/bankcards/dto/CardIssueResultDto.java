@@ -0,0 +1,24 @@
+package com.example.bankcards.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@AllArgsConstructor
+@ToString
+@Schema(description = "Результат выпуска карты из пакета")
+public class CardIssueResultDto {
+    @Schema(description = "Номер карты в пакете", example = "0")
+    private int index;
+
+    @Schema(description = "Номер карты", example = "1111 1111 1111 1111")
+    private String cardNumber;
+
+    @Schema(description = "Карта выпущена", example = "true")
+    private boolean created;
+
+    @Schema(description = "Причина отказа", example = "Карта с этим номером уже существует")
+    private String message;
+}
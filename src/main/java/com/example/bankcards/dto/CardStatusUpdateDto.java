@@ -0,0 +1,22 @@
+package com.example.bankcards.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import com.example.bankcards.entity.CardStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@AllArgsConstructor
+@ToString
+@Schema(description = "Результат смены статуса карт по фильтру")
+public class CardStatusUpdateDto {
+    @Schema(description = "Новый статус карт", example = "BLOCKED")
+    private CardStatus cardStatus;
+
+    @Schema(description = "Сколько карт изменено", example = "42")
+    private long updated;
+
+    @Schema(description = "Сколько транзакций потребовалось", example = "1")
+    private int chunks;
+}
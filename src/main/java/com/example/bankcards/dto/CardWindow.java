@@ -0,0 +1,19 @@
+package com.example.bankcards.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class CardWindow {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private List<CardDto> cards;
+
+    /**
+     * Курсор следующего окна или {@code null}, если карт больше нет.
+     */
+    private String nextCursor;
+}
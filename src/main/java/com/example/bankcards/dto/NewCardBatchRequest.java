@@ -0,0 +1,22 @@
+package com.example.bankcards.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "Пакет выпускаемых карт")
+public class NewCardBatchRequest {
+    // Строки не проверяются через @Valid: ошибка в одной карте попадает в ее результат и не отклоняет весь пакет
+    @Schema(description = "Карты к выпуску")
+    @NotEmpty(message = "Пакет карт не должен быть пустым")
+    @Size(max = 50_000, message = "Пакет может содержать не более 50000 карт")
+    private List<NewCardDto> cards;
+}
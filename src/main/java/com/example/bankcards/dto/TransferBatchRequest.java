@@ -0,0 +1,22 @@
+package com.example.bankcards.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "Пакет переводов между картами одного пользователя")
+public class TransferBatchRequest {
+    @Schema(description = "Переводы в порядке выполнения")
+    @NotEmpty(message = "Пакет переводов не должен быть пустым")
+    @Size(max = 1000, message = "Пакет может содержать не более 1000 переводов")
+    private List<@Valid TransferRequest> transfers;
+}
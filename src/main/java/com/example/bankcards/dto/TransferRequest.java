@@ -0,0 +1,25 @@
+package com.example.bankcards.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "Перевод между картами одного пользователя")
+public class TransferRequest {
+    @Schema(description = "Номер карты отправителя", example = "1111 1111 1111 1111")
+    @NotBlank(message = "Номер карты отправителя не должен быть пустым")
+    private String cardNumberSender;
+
+    @Schema(description = "Номер карты получателя", example = "1111 1111 1111 1112")
+    @NotBlank(message = "Номер карты получателя не должен быть пустым")
+    private String cardNumberRecipient;
+
+    @Schema(description = "Сумма перевода", example = "12.34")
+    @NotBlank(message = "Сумма перевода не должна быть пустой")
+    private String amount;
+}
@@ -0,0 +1,21 @@
+package com.example.bankcards.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@AllArgsConstructor
+@ToString
+@Schema(description = "Результат перевода из пакета")
+public class TransferResultDto {
+    @Schema(description = "Номер перевода в пакете", example = "0")
+    private int index;
+
+    @Schema(description = "Перевод выполнен", example = "true")
+    private boolean completed;
+
+    @Schema(description = "Причина отказа", example = "Недостаточно средств на карте")
+    private String message;
+}
@@ -1,32 +1,70 @@
 package com.example.bankcards.entity;
 
 import jakarta.persistence.*;
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import com.example.bankcards.util.Money;
+
+import java.time.LocalDate;
 
 @Entity
-@Table(name = "cards")
+// Индексы повторяют changeset'ы Liquibase, чтобы схема, созданная Hibernate в тестах, имела те же пути доступа
+@Table(name = "cards", indexes = {
+        @Index(name = "ix_cards_user_id_id", columnList = "user_id, id"),
+        @Index(name = "ix_cards_card_status_id", columnList = "card_status, id"),
+        @Index(name = "ix_cards_user_id_card_status_id", columnList = "user_id, card_status, id"),
+        @Index(name = "ix_cards_expires_on_id", columnList = "expires_on, id")
+}, uniqueConstraints = @UniqueConstraint(name = "uq_cards_card_number", columnNames = "card_number"))
 @Getter
-@AllArgsConstructor
 @NoArgsConstructor
 public class Card {
+    private static final CardValidityPeriodConverter VALIDITY_PERIOD = new CardValidityPeriodConverter();
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Последовательность с шагом 50 (pooled): Hibernate выдает id без обращения к БД и может вставлять
+    // карты пачками, чего не позволяет IDENTITY
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cards_seq")
+    @SequenceGenerator(name = "cards_seq", sequenceName = "cards_seq", allocationSize = 50)
     private Long id;
 
+    @Convert(converter = CardNumberConverter.class)
     private String cardNumber;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User cardholder;
 
+    // Срок действия в формате API; в БД пишется только expires_on, отдельной колонки со строкой MM/yy нет
+    @Convert(converter = CardValidityPeriodConverter.class)
+    @Column(name = "expires_on")
     private String cardValidityPeriod;
 
-    @Enumerated(EnumType.STRING)
+    // Та же колонка как дата, для поиска по диапазону; записывается через cardValidityPeriod
+    @Column(name = "expires_on", insertable = false, updatable = false)
+    private LocalDate expiresOn;
+
+    @Convert(converter = CardStatusConverter.class)
     private CardStatus cardStatus;
 
-    private double balance;
+    private long balance;
+
+    @Version
+    private long version;
+
+    public Card(Long id, String cardNumber, User cardholder, String cardValidityPeriod, CardStatus cardStatus,
+                long balance) {
+        this.id = id;
+        this.cardNumber = cardNumber;
+        this.cardholder = cardholder;
+        this.cardValidityPeriod = cardValidityPeriod;
+        this.expiresOn = expiresOn(cardValidityPeriod);
+        this.cardStatus = cardStatus;
+        this.balance = balance;
+    }
+
+    public static LocalDate expiresOn(String cardValidityPeriod) {
+        return VALIDITY_PERIOD.convertToDatabaseColumn(cardValidityPeriod);
+    }
 
     public void blockCard() {
         this.cardStatus = CardStatus.BLOCKED;
@@ -36,11 +74,11 @@ public class Card {
         this.cardStatus = CardStatus.ACTIVE;
     }
 
-    public void increaseBalance(double amount) {
-        this.balance += amount;
+    public void increaseBalance(long amount) {
+        this.balance = Money.add(balance, amount);
     }
 
-    public void reduceBalance(double amount) {
-        this.balance -= amount;
+    public void reduceBalance(long amount) {
+        this.balance = Money.subtract(balance, amount);
     }
 }
\ No newline at end of file
@@ -0,0 +1,80 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Хранит номер карты как 16-значное число {@code BIGINT} вместо строки {@code "1111 2222 3333 4444"}:
+ * 8 байт вместо 20 в строке таблицы и в уникальном индексе, по которому ищется каждая карта.
+ * Наружу номер по-прежнему отдается в формате с пробелами.
+ */
+@Converter
+public class CardNumberConverter implements AttributeConverter<String, Long> {
+    // Ни один номер не превращается в отрицательное число, поэтому поиск по некорректному номеру
+    // (например, из пути запроса) ничего не находит, а не падает
+    private static final long NO_CARD = -1;
+
+    /**
+     * Используется Hibernate и для записи карты, и для параметров запросов по номеру, поэтому некорректный
+     * номер отклоняется: записать его в БД нельзя. Номера из запросов проверяются до обращения к репозиторию
+     * ({@link com.example.bankcards.util.CardFormat}), а для поиска в обход JPA есть {@link #toLookupValue}.
+     */
+    @Override
+    public Long convertToDatabaseColumn(String cardNumber) {
+        if (cardNumber == null) {
+            return null;
+        }
+        long value = parse(cardNumber);
+        if (value == NO_CARD) {
+            throw new IllegalArgumentException("Указан некорректный номер карты");
+        }
+        return value;
+    }
+
+    /**
+     * Значение для параметра поиска: некорректный номер превращается в число, которого нет ни у одной карты.
+     */
+    public static long toLookupValue(String cardNumber) {
+        return cardNumber == null ? NO_CARD : parse(cardNumber);
+    }
+
+    private static long parse(String cardNumber) {
+        if (cardNumber.length() != 19) {
+            return NO_CARD;
+        }
+
+        long value = 0;
+        for (int i = 0; i < cardNumber.length(); i++) {
+            char c = cardNumber.charAt(i);
+            if (i % 5 == 4) {
+                if (c != ' ') {
+                    return NO_CARD;
+                }
+            } else if (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+            } else {
+                return NO_CARD;
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public String convertToEntityAttribute(Long value) {
+        if (value == null) {
+            return null;
+        }
+
+        char[] cardNumber = new char[19];
+        long rest = value;
+        for (int i = cardNumber.length - 1; i >= 0; i--) {
+            if (i % 5 == 4) {
+                cardNumber[i] = ' ';
+            } else {
+                cardNumber[i] = (char) ('0' + rest % 10);
+                rest /= 10;
+            }
+        }
+        return new String(cardNumber);
+    }
+}
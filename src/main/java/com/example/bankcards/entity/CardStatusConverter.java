@@ -0,0 +1,40 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Хранит статус карты как {@code SMALLINT}. Коды заданы явно, а не порядком констант, чтобы новые статусы
+ * не меняли смысл уже записанных строк; те же коды использует changeset alter-table-cards-compact-layout.sql.
+ */
+@Converter
+public class CardStatusConverter implements AttributeConverter<CardStatus, Short> {
+    public static final short ACTIVE = 1;
+    public static final short BLOCKED = 2;
+    public static final short EXPIRED = 3;
+
+    @Override
+    public Short convertToDatabaseColumn(CardStatus cardStatus) {
+        if (cardStatus == null) {
+            return null;
+        }
+        return switch (cardStatus) {
+            case ACTIVE -> ACTIVE;
+            case BLOCKED -> BLOCKED;
+            case EXPIRED -> EXPIRED;
+        };
+    }
+
+    @Override
+    public CardStatus convertToEntityAttribute(Short code) {
+        if (code == null) {
+            return null;
+        }
+        return switch (code) {
+            case ACTIVE -> CardStatus.ACTIVE;
+            case BLOCKED -> CardStatus.BLOCKED;
+            case EXPIRED -> CardStatus.EXPIRED;
+            default -> throw new IllegalStateException("Неизвестный код статуса карты " + code);
+        };
+    }
+}
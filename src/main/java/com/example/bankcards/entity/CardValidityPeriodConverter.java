@@ -0,0 +1,27 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Срок действия {@code "MM/yy"} хранится только в колонке {@code expires_on} как последний день месяца.
+ * Сравнение и сортировка по сроку идут по дате, а не по строке, где {@code "01/27" < "12/26"}.
+ */
+@Converter
+public class CardValidityPeriodConverter implements AttributeConverter<String, LocalDate> {
+    private static final DateTimeFormatter VALIDITY_PERIOD = DateTimeFormatter.ofPattern("MM/yy");
+
+    @Override
+    public LocalDate convertToDatabaseColumn(String cardValidityPeriod) {
+        return cardValidityPeriod == null ? null : YearMonth.parse(cardValidityPeriod, VALIDITY_PERIOD).atEndOfMonth();
+    }
+
+    @Override
+    public String convertToEntityAttribute(LocalDate expiresOn) {
+        return expiresOn == null ? null : expiresOn.format(VALIDITY_PERIOD);
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "idempotency_keys")
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class IdempotencyKey {
+    @EmbeddedId
+    private IdempotencyKeyId id;
+
+    private String cardNumberSender;
+
+    private String cardNumberRecipient;
+
+    private long amount;
+
+    private LocalDateTime createdAt;
+
+    @Enumerated(EnumType.STRING)
+    private Rejection rejection;
+
+    private String rejectionMessage;
+
+    public IdempotencyKey(IdempotencyKeyId id, String cardNumberSender, String cardNumberRecipient, long amount,
+                          LocalDateTime createdAt) {
+        this(id, cardNumberSender, cardNumberRecipient, amount, createdAt, null, null);
+    }
+
+    public IdempotencyKey withRejection(Rejection rejection, String rejectionMessage) {
+        return new IdempotencyKey(id, cardNumberSender, cardNumberRecipient, amount, createdAt, rejection,
+                rejectionMessage);
+    }
+
+    public boolean isRejected() {
+        return rejection != null;
+    }
+
+    public boolean isSameTransfer(IdempotencyKey other) {
+        return cardNumberSender.equals(other.cardNumberSender)
+               && cardNumberRecipient.equals(other.cardNumberRecipient)
+               && amount == other.amount;
+    }
+
+    /**
+     * Причина, по которой перевод под ключом был отклонен; повтор запроса получает тот же отказ.
+     */
+    public enum Rejection {
+        NOT_FOUND,
+        ACCESS_DENIED,
+        REJECTED
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Момент, до которого отозваны все токены пользователя. Строка переживает удаление пользователя, поэтому
+ * внешнего ключа на users нет.
+ */
+@Entity
+@Table(name = "token_revocations")
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class TokenRevocation {
+    @Id
+    private Long userId;
+
+    private Instant revokedAt;
+}
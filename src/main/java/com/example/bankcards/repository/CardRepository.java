@@ -1,22 +1,140 @@
 package com.example.bankcards.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import com.example.bankcards.dto.CardDto;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.CardStatusConverter;
 import com.example.bankcards.entity.User;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface CardRepository extends JpaRepository<Card, Long> {
+    int EXPORT_FETCH_SIZE = 1_000;
+
+    // Страницы карт читаются сразу в CardDto: без сущностей в контексте персистентности и их снимков
+    String SELECT_CARD_DTO = "select new com.example.bankcards.dto.CardDto(c.cardNumber, u.username, " +
+                             "c.cardValidityPeriod, c.cardStatus, c.balance) from Card c join c.cardholder u ";
+
     Optional<Card> findByCardNumber(String cardNumber);
 
-    List<Card> findByCardholderAndCardStatus(Pageable pageable, User cardholder, CardStatus cardStatus);
+    List<Card> findByCardNumberIn(Collection<String> cardNumbers);
+
+    @Query("select c.cardNumber from Card c where c.cardNumber in :cardNumbers")
+    List<String> findExistingCardNumbers(@Param("cardNumbers") Collection<String> cardNumbers);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<Card> findByCardNumberInOrderByIdAsc(Collection<String> cardNumbers);
+
+    @Modifying
+    @Query("update Card c set c.balance = c.balance - :amount, c.version = c.version + 1 " +
+           "where c.cardNumber = :cardNumber and c.cardholder.id = :userId " +
+           "and c.cardStatus = com.example.bankcards.entity.CardStatus.ACTIVE and c.balance >= :amount")
+    int debit(@Param("cardNumber") String cardNumber, @Param("userId") Long userId, @Param("amount") long amount);
+
+    @Modifying
+    @Query("update Card c set c.balance = c.balance + :amount, c.version = c.version + 1 " +
+           "where c.cardNumber = :cardNumber and c.cardholder.id = :userId " +
+           "and c.cardStatus = com.example.bankcards.entity.CardStatus.ACTIVE")
+    int credit(@Param("cardNumber") String cardNumber, @Param("userId") Long userId, @Param("amount") long amount);
+
+    /**
+     * Переводит из статуса {@code from} в {@code to} не больше {@code limit} карт, подходящих под фильтр;
+     * параметр фильтра {@code null} выборку не ограничивает. Измененные карты выпадают из выборки, поэтому
+     * повторные вызовы до нулевого результата проходят все карты, держа блокировки только на одной порции.
+     * Каждый вызов выполняется в своей транзакции, если вызывающий код не открыл общую.
+     */
+    @Transactional
+    @Modifying
+    @Query("update Card c set c.cardStatus = :to, c.version = c.version + 1 " +
+           "where c.cardStatus = :from and c.id in (select s.id from Card s where s.cardStatus = :from " +
+           "and (:userId is null or s.cardholder.id = :userId) " +
+           "and (:numberFrom is null or s.cardNumber between :numberFrom and :numberTo) " +
+           "and (:validityPeriod is null or s.cardValidityPeriod = :validityPeriod) " +
+           "order by s.id limit :limit)")
+    int updateStatusChunk(@Param("from") CardStatus from, @Param("to") CardStatus to, @Param("userId") Long userId,
+                          @Param("numberFrom") String numberFrom, @Param("numberTo") String numberTo,
+                          @Param("validityPeriod") String validityPeriod, @Param("limit") int limit);
+
+    /**
+     * Переводит в EXPIRED не больше {@code limit} карт, срок которых закончился до {@code today}.
+     * Заблокированные другой транзакцией строки пропускаются, а не ожидаются.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE cards SET card_status = " + CardStatusConverter.EXPIRED + ", version = version + 1 " +
+                   "WHERE id IN (SELECT id FROM cards WHERE expires_on < :today " +
+                   "AND card_status IN (" + CardStatusConverter.ACTIVE + ", " + CardStatusConverter.BLOCKED + ") " +
+                   "LIMIT :limit FOR UPDATE SKIP LOCKED)", nativeQuery = true)
+    int expireBatch(@Param("today") LocalDate today, @Param("limit") int limit);
+
+    @Query(SELECT_CARD_DTO)
+    Slice<CardDto> findCardDtos(Pageable pageable);
+
+    @Query(SELECT_CARD_DTO + "where c.cardholder = :cardholder and c.cardStatus = :cardStatus")
+    Slice<CardDto> findCardDtosByCardholderAndCardStatus(@Param("cardholder") User cardholder,
+                                                         @Param("cardStatus") CardStatus cardStatus,
+                                                         Pageable pageable);
+
+    @Query(SELECT_CARD_DTO + "where c.cardholder = :cardholder")
+    Slice<CardDto> findCardDtosByCardholder(@Param("cardholder") User cardholder, Pageable pageable);
+
+    @Query(SELECT_CARD_DTO + "where c.cardStatus = :cardStatus")
+    Slice<CardDto> findCardDtosByCardStatus(@Param("cardStatus") CardStatus cardStatus, Pageable pageable);
+
+    @Query(SELECT_CARD_DTO + "where c.expiresOn between :from and :to " +
+           "and c.cardStatus <> com.example.bankcards.entity.CardStatus.EXPIRED")
+    Slice<CardDto> findCardDtosExpiringBetween(@Param("from") LocalDate from, @Param("to") LocalDate to,
+                                               Pageable pageable);
+
+    long countByCardholderAndCardStatus(User cardholder, CardStatus cardStatus);
+
+    long countByCardholder(User cardholder);
+
+    long countByCardStatus(CardStatus cardStatus);
+
+    // Окна по курсору остаются на сущностях: ключ следующего окна Spring Data берет из свойств Card.
+    // Все списки карт маппятся в CardDto с именем владельца, поэтому владелец читается тем же запросом,
+    // а не отдельным select на каждую строку
+    @EntityGraph(attributePaths = "cardholder")
+    Window<Card> findBy(ScrollPosition position, Limit limit, Sort sort);
+
+    @EntityGraph(attributePaths = "cardholder")
+    Window<Card> findByCardholder(User cardholder, ScrollPosition position, Limit limit, Sort sort);
+
+    @EntityGraph(attributePaths = "cardholder")
+    Window<Card> findByCardStatus(CardStatus cardStatus, ScrollPosition position, Limit limit, Sort sort);
 
-    List<Card> findByCardholder(Pageable pageable, User cardholder);
+    @EntityGraph(attributePaths = "cardholder")
+    Window<Card> findByCardholderAndCardStatus(User cardholder, CardStatus cardStatus, ScrollPosition position,
+                                               Limit limit, Sort sort);
 
-    List<Card> findByCardStatus(Pageable pageable, CardStatus cardStatus);
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select c from Card c join fetch c.cardholder order by c.id")
+    Stream<Card> streamAllForExport();
 }
\ No newline at end of file
@@ -0,0 +1,30 @@
+package com.example.bankcards.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import com.example.bankcards.entity.IdempotencyKey;
+import com.example.bankcards.entity.IdempotencyKeyId;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, IdempotencyKeyId> {
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_keys (user_id, idempotency_key, card_number_sender, " +
+                   "card_number_recipient, amount, created_at, rejection, rejection_message) " +
+                   "VALUES (:userId, :key, :cardNumberSender, :cardNumberRecipient, :amount, :createdAt, " +
+                   ":rejection, :rejectionMessage) " +
+                   "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("userId") Long userId, @Param("key") String key,
+                       @Param("cardNumberSender") String cardNumberSender,
+                       @Param("cardNumberRecipient") String cardNumberRecipient,
+                       @Param("amount") long amount, @Param("createdAt") LocalDateTime createdAt,
+                       @Param("rejection") String rejection, @Param("rejectionMessage") String rejectionMessage);
+
+    @Modifying
+    @Query("delete from IdempotencyKey k where k.createdAt < :threshold")
+    int deleteCreatedBefore(@Param("threshold") LocalDateTime threshold);
+}
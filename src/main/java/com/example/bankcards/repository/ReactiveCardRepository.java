@@ -0,0 +1,98 @@
+package com.example.bankcards.repository;
+
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.entity.CardNumberConverter;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.CardStatusConverter;
+import com.example.bankcards.entity.CardValidityPeriodConverter;
+import com.example.bankcards.util.CardSortFields;
+import com.example.bankcards.util.Money;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+
+/**
+ * Неблокирующие запросы на чтение карт через R2DBC. Используются только для чтения, изменения карт
+ * выполняются через {@link CardRepository}.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ReactiveCardRepository {
+    private static final String SELECT_CARDS = "SELECT c.card_number, u.username, c.expires_on, " +
+                                               "c.card_status, c.balance " +
+                                               "FROM cards c JOIN users u ON u.id = c.user_id ";
+    // Колонки хранятся в компактном виде (см. Card), наружу отдаются в формате API
+    private static final CardNumberConverter CARD_NUMBER = new CardNumberConverter();
+    private static final CardValidityPeriodConverter VALIDITY_PERIOD = new CardValidityPeriodConverter();
+    private static final CardStatusConverter CARD_STATUS = new CardStatusConverter();
+
+    private final DatabaseClient databaseClient;
+
+    public Flux<CardDto> findByCardholderId(Long userId, int page, int size, String sortBy, String sortMode) {
+        return databaseClient.sql(SELECT_CARDS + "WHERE c.user_id = :userId " + orderAndLimit(sortBy, sortMode))
+                .bind("userId", userId)
+                .bind("limit", size)
+                .bind("offset", (long) page * size)
+                .map(ReactiveCardRepository::toCardDto)
+                .all();
+    }
+
+    public Flux<CardDto> findAll(String username, CardStatus cardStatus, int page, int size, String sortBy,
+                                 String sortMode) {
+        StringBuilder sql = new StringBuilder(SELECT_CARDS).append("WHERE 1 = 1 ");
+        if (username != null) {
+            sql.append("AND u.username = :username ");
+        }
+        if (cardStatus != null) {
+            sql.append("AND c.card_status = :cardStatus ");
+        }
+        sql.append(orderAndLimit(sortBy, sortMode));
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString())
+                .bind("limit", size)
+                .bind("offset", (long) page * size);
+        if (username != null) {
+            spec = spec.bind("username", username);
+        }
+        if (cardStatus != null) {
+            spec = spec.bind("cardStatus", CARD_STATUS.convertToDatabaseColumn(cardStatus));
+        }
+        return spec.map(ReactiveCardRepository::toCardDto).all();
+    }
+
+    public Mono<CardBalance> findBalanceByCardNumber(String cardNumber) {
+        return databaseClient.sql("SELECT user_id, card_status, balance FROM cards WHERE card_number = :cardNumber")
+                .bind("cardNumber", CardNumberConverter.toLookupValue(cardNumber))
+                .map(row -> new CardBalance(row.get("user_id", Long.class),
+                        CARD_STATUS.convertToEntityAttribute(row.get("card_status", Short.class)),
+                        row.get("balance", Long.class)))
+                .one();
+    }
+
+    private static String orderAndLimit(String sortBy, String sortMode) {
+        return "ORDER BY " + CardSortFields.SORT_FIELDS.orderBy(sortBy, sortMode) + " LIMIT :limit OFFSET :offset";
+    }
+
+    private static CardDto toCardDto(Readable row) {
+        return new CardDto(CARD_NUMBER.convertToEntityAttribute(row.get("card_number", Long.class)),
+                row.get("username", String.class),
+                VALIDITY_PERIOD.convertToEntityAttribute(row.get("expires_on", LocalDate.class)),
+                CARD_STATUS.convertToEntityAttribute(row.get("card_status", Short.class)),
+                Money.toDecimal(row.get("balance", Long.class)));
+    }
+
+    @Value
+    public static class CardBalance {
+        Long userId;
+
+        CardStatus cardStatus;
+
+        long balance;
+    }
+}
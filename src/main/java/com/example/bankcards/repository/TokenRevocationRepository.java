@@ -0,0 +1,17 @@
+package com.example.bankcards.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import com.example.bankcards.entity.TokenRevocation;
+
+import java.time.Instant;
+
+@Repository
+public interface TokenRevocationRepository extends JpaRepository<TokenRevocation, Long> {
+    @Modifying
+    @Query("delete from TokenRevocation r where r.revokedAt < :threshold")
+    int deleteRevokedBefore(@Param("threshold") Instant threshold);
+}
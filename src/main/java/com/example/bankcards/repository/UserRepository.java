@@ -1,9 +1,15 @@
 package com.example.bankcards.repository;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import com.example.bankcards.dto.UserDto;
 import com.example.bankcards.entity.User;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -11,4 +17,9 @@ public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsByUsername(String username);
 
     Optional<User> findByUsername(String username);
+
+    List<User> findByUsernameIn(Collection<String> usernames);
+
+    @Query("select new com.example.bankcards.dto.UserDto(u.username, u.role) from User u")
+    Slice<UserDto> findUserDtos(Pageable pageable);
 }
\ No newline at end of file
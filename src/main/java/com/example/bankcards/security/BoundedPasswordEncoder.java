@@ -0,0 +1,85 @@
+package com.example.bankcards.security;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import com.example.bankcards.config.PasswordHashingProperties;
+import com.example.bankcards.exception.ServiceBusyException;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Ограничивает число одновременных операций хеширования паролей. BCrypt нагружает процессор, поэтому всплеск
+ * входов не должен занимать все потоки Tomcat: хеширование выполняется в потоке запроса, но только после
+ * получения разрешения. Если разрешение не получено за {@code bank.password-hashing.acquire-timeout}, запрос
+ * сразу получает {@link ServiceBusyException} (503 с заголовком {@code Retry-After}).
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+    private final PasswordEncoder delegate;
+    private final int maxConcurrent;
+    private final Semaphore permits;
+    private final long acquireTimeoutNanos;
+    private final Duration retryAfter;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, PasswordHashingProperties properties,
+                                  MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.maxConcurrent = properties.getMaxConcurrent();
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.acquireTimeoutNanos = properties.getAcquireTimeout().toNanos();
+        this.retryAfter = properties.getRetryAfter();
+
+        Gauge.builder("bank.password.hashing.queue", permits, Semaphore::getQueueLength)
+                .description("Число операций хеширования, ожидающих разрешение")
+                .register(meterRegistry);
+        Gauge.builder("bank.password.hashing.active", permits, p -> maxConcurrent - p.availablePermits())
+                .register(meterRegistry);
+        this.encodeTimer = hashTimer(meterRegistry, "encode");
+        this.matchesTimer = hashTimer(meterRegistry, "matches");
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return admit(encodeTimer, () -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return admit(matchesTimer, () -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T admit(Timer timer, Supplier<T> task) {
+        try {
+            if (!permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw new ServiceBusyException("Сервис перегружен, повторите попытку позже", retryAfter);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+        try {
+            return timer.record(task);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static Timer hashTimer(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder("bank.password.hashing")
+                .description("Время хеширования пароля")
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.bankcards.security;
+
+import lombok.Value;
+
+import java.time.Instant;
+
+/**
+ * Проверенное содержимое JWT. Создается один раз на запрос в {@link JwtService#parseToken(String)}.
+ */
+@Value
+public class JwtClaims {
+    String username;
+
+    Long userId;
+
+    String role;
+
+    Instant issuedAt;
+
+    Instant expiresAt;
+
+    public boolean isExpired(Instant now) {
+        return expiresAt != null && !expiresAt.isAfter(now);
+    }
+}
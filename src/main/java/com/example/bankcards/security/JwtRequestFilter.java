@@ -12,6 +12,9 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
+import com.example.bankcards.config.JwtProperties;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
 import com.example.bankcards.service.UserService;
 
 import java.io.IOException;
@@ -21,6 +24,9 @@ import java.io.IOException;
 public class JwtRequestFilter extends OncePerRequestFilter {
     private final JwtService jwtService;
     private final UserService userService;
+    private final JwtProperties jwtProperties;
+    private final TokenRevocationService tokenRevocationService;
+    private final VerifiedTokenCache verifiedTokenCache;
     public static final String BEARER = "Bearer ";
     public static final String AUTH = "Authorization";
 
@@ -35,13 +41,13 @@ public class JwtRequestFilter extends OncePerRequestFilter {
         }
 
         String jwt = authorizationHeader.substring(BEARER.length());
-        String username = jwtService.extractUsername(jwt);
+        JwtClaims claims = verifiedTokenCache.get(jwt, jwtService::parseToken);
+        String username = claims.getUsername();
 
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userService.userDetailsService()
-                                          .loadUserByUsername(username);
+            UserDetails userDetails = loadUserDetails(claims);
 
-            if (userDetails != null && jwtService.isTokenValid(jwt, userDetails)) {
+            if (userDetails != null && jwtService.isTokenValid(claims, userDetails)) {
                 SecurityContext context = SecurityContextHolder.createEmptyContext();
                 UsernamePasswordAuthenticationToken authorizationToken =
                         new UsernamePasswordAuthenticationToken(userDetails,null,
@@ -53,4 +59,14 @@ public class JwtRequestFilter extends OncePerRequestFilter {
         }
         chain.doFilter(request, response);
     }
+
+    private UserDetails loadUserDetails(JwtClaims claims) {
+        if (jwtProperties.isStatelessPrincipal() && claims.getUserId() != null && claims.getRole() != null) {
+            if (tokenRevocationService.isRevoked(claims)) {
+                return null;
+            }
+            return new User(claims.getUserId(), claims.getUsername(), null, Role.valueOf(claims.getRole()));
+        }
+        return userService.userDetailsService().loadUserByUsername(claims.getUsername());
+    }
 }
\ No newline at end of file
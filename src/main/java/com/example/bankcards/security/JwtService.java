@@ -1,24 +1,28 @@
 package com.example.bankcards.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 import com.example.bankcards.entity.User;
 
-import java.security.Key;
+import javax.crypto.SecretKey;
+import java.time.Instant;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.function.Function;
 
 @Service
 public class JwtService {
-    private String KEY = "2hfd5ds1lvng6y3tf2avjhb3jn8fdanaochrb61424fhrano7";
-    private int VALIDITY = 86400000;
+    private static final String KEY = "2hfd5ds1lvng6y3tf2avjhb3jn8fdanaochrb61424fhrano7";
+    static final int VALIDITY = 86400000;
+
+    // Ключ и парсер потокобезопасны, поэтому создаются один раз, а не на каждый запрос
+    private final SecretKey signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(KEY));
+    private final JwtParser parser = Jwts.parser().verifyWith(signingKey).build();
 
     public String generateToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
@@ -28,33 +32,38 @@ public class JwtService {
         }
 
         return Jwts.builder()
-                   .setClaims(claims)
-                   .setSubject(userDetails.getUsername())
-                   .setIssuedAt(new Date(System.currentTimeMillis()))
-                   .setExpiration(new Date(System.currentTimeMillis() + VALIDITY))
-                   .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                   .claims(claims)
+                   .subject(userDetails.getUsername())
+                   .issuedAt(new Date(System.currentTimeMillis()))
+                   .expiration(new Date(System.currentTimeMillis() + VALIDITY))
+                   .signWith(signingKey, Jwts.SIG.HS256)
                    .compact();
     }
 
-    public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
-
+    /**
+     * Проверяет подпись и срок действия токена и разбирает его содержимое. Подпись проверяется один раз,
+     * дальше используется только возвращенный объект.
+     *
+     * @throws io.jsonwebtoken.JwtException если токен поврежден, подделан или просрочен
+     */
+    public JwtClaims parseToken(String token) {
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        return new JwtClaims(claims.getSubject(),
+                claims.get("id", Long.class),
+                claims.get("role", String.class),
+                toInstant(claims.getIssuedAt()),
+                toInstant(claims.getExpiration()));
     }
 
-    public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String extractedUsername = extractUsername(token);
-        return (extractedUsername.equals(userDetails.getUsername())) &&
-                !extractClaim(token, Claims::getExpiration).before(new Date());
+    public String extractUsername(String token) {
+        return parseToken(token).getUsername();
     }
 
-    private Key getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(KEY);
-        return Keys.hmacShaKeyFor(keyBytes);
+    public boolean isTokenValid(JwtClaims claims, UserDetails userDetails) {
+        return claims.getUsername().equals(userDetails.getUsername()) && !claims.isExpired(Instant.now());
     }
 
-    private <T> T extractClaim(String token, Function<Claims, T> claimsResolvers) {
-        final Claims claims = Jwts.parser().setSigningKey(getSigningKey()).build().parseClaimsJws(token)
-                .getBody();
-        return claimsResolvers.apply(claims);
+    private static Instant toInstant(Date date) {
+        return date == null ? null : date.toInstant();
     }
-}
\ No newline at end of file
+}
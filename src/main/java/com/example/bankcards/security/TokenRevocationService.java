@@ -0,0 +1,66 @@
+package com.example.bankcards.security;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import com.example.bankcards.config.JwtProperties;
+import com.example.bankcards.entity.TokenRevocation;
+import com.example.bankcards.repository.TokenRevocationRepository;
+import com.example.bankcards.util.AsyncCaches;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+/**
+ * Отзывает токены удаленных пользователей. Нужен для режима {@code bank.jwt.stateless-principal}, в котором
+ * фильтр не проверяет наличие пользователя в базе. Момент отзыва хранится в таблице {@code token_revocations},
+ * поэтому отзыв переживает перезапуск и виден всем узлам; токен отозван, если выдан ({@code iat}) не позже
+ * этого момента. Строки хранятся столько же, сколько действует токен, после этого все токены пользователя
+ * истекают сами.
+ * <p>
+ * Перед таблицей стоит кэш, в том числе для пользователей без отзыва, чтобы фильтр не читал базу на каждый
+ * запрос. Отзыв на другом узле становится виден здесь не позже {@code bank.jwt.revocation-cache-ttl}.
+ */
+@Service
+public class TokenRevocationService {
+    private final TokenRevocationRepository tokenRevocationRepository;
+    private final AsyncCache<Long, Optional<Instant>> revokedAt;
+    private final Timer revocationLoads;
+
+    public TokenRevocationService(TokenRevocationRepository tokenRevocationRepository, JwtProperties properties,
+                                  MeterRegistry meterRegistry) {
+        this.tokenRevocationRepository = tokenRevocationRepository;
+        this.revokedAt = AsyncCaches.build(Caffeine.newBuilder()
+                .maximumSize(properties.getRevocationCacheSize())
+                .expireAfterWrite(properties.getRevocationCacheTtl())
+                .recordStats());
+        this.revocationLoads = AsyncCaches.monitor(meterRegistry, revokedAt, "token_revocations");
+    }
+
+    @Transactional
+    public void revokeUser(Long userId) {
+        Instant now = Instant.now();
+        tokenRevocationRepository.save(new TokenRevocation(userId, now));
+        revokedAt.synchronous().put(userId, Optional.of(now));
+    }
+
+    public boolean isRevoked(JwtClaims claims) {
+        Optional<Instant> revoked = AsyncCaches.get(revokedAt, claims.getUserId(), revocationLoads, userId ->
+                tokenRevocationRepository.findById(userId).map(TokenRevocation::getRevokedAt));
+        // iat хранится с точностью до секунды, поэтому токен, выданный в секунду отзыва, тоже считается отозванным
+        return revoked.isPresent() && (claims.getIssuedAt() == null
+                || !claims.getIssuedAt().isAfter(revoked.get().truncatedTo(ChronoUnit.SECONDS)));
+    }
+
+    @Transactional
+    @Scheduled(initialDelayString = "${bank.jwt.revocation-purge-interval:PT1H}",
+            fixedDelayString = "${bank.jwt.revocation-purge-interval:PT1H}")
+    public void purgeExpired() {
+        tokenRevocationRepository.deleteRevokedBefore(Instant.now().minusMillis(JwtService.VALIDITY));
+    }
+}
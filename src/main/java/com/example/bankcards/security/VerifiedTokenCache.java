@@ -0,0 +1,74 @@
+package com.example.bankcards.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import com.example.bankcards.config.JwtProperties;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.function.Function;
+
+/**
+ * Кэш проверенных токенов. Клиенты повторяют один и тот же токен в тысячах запросов, поэтому результат проверки
+ * подписи хранится до истечения срока действия токена. Ключом служит SHA-256 от токена, сам токен в памяти
+ * не хранится. Недействительные токены не кэшируются.
+ */
+@Component
+public class VerifiedTokenCache {
+    private final boolean enabled;
+    private final Cache<String, JwtClaims> tokens;
+
+    public VerifiedTokenCache(JwtProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.isTokenCacheEnabled();
+        this.tokens = Caffeine.newBuilder()
+                .maximumSize(properties.getTokenCacheSize())
+                .expireAfter(new UntilTokenExpires())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, tokens, "jwt_tokens");
+    }
+
+    public JwtClaims get(String token, Function<String, JwtClaims> parser) {
+        if (!enabled) {
+            return parser.apply(token);
+        }
+        return tokens.get(digest(token), key -> parser.apply(token));
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class UntilTokenExpires implements Expiry<String, JwtClaims> {
+        @Override
+        public long expireAfterCreate(String key, JwtClaims claims, long currentTime) {
+            if (claims.getExpiresAt() == null) {
+                return Duration.ofMillis(JwtService.VALIDITY).toNanos();
+            }
+            return Math.max(0, Duration.between(Instant.now(), claims.getExpiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, JwtClaims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String key, JwtClaims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
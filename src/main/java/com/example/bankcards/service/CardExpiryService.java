@@ -0,0 +1,37 @@
+package com.example.bankcards.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import com.example.bankcards.config.CardExpiryProperties;
+import com.example.bankcards.repository.CardRepository;
+
+import java.time.LocalDate;
+
+/**
+ * Переводит карты с истекшим сроком действия в {@code EXPIRED}. Карты отбираются по индексу
+ * {@code expires_on} порциями по {@code bank.card-expiry.batch-size}, каждая порция в своей транзакции.
+ * Строки, уже заблокированные другим узлом или переводом, пропускаются ({@code SKIP LOCKED}) и достанутся
+ * следующему проходу, поэтому задачу можно запускать на нескольких узлах одновременно.
+ */
+@Service
+@RequiredArgsConstructor
+public class CardExpiryService {
+    private final CardRepository cardRepository;
+    private final CardExpiryProperties properties;
+
+    @Scheduled(initialDelayString = "${bank.card-expiry.sweep-interval:PT1H}",
+            fixedDelayString = "${bank.card-expiry.sweep-interval:PT1H}")
+    public void sweep() {
+        expireCards(LocalDate.now());
+    }
+
+    public long expireCards(LocalDate today) {
+        long expired = 0;
+        int count;
+        while ((count = cardRepository.expireBatch(today, properties.getBatchSize())) > 0) {
+            expired += count;
+        }
+        return expired;
+    }
+}
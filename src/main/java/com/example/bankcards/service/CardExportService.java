@@ -0,0 +1,115 @@
+package com.example.bankcards.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.persistence.EntityManager;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.util.CardMapper;
+import com.example.bankcards.util.Csv;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Выгрузка всех карт. Строки читаются курсором БД порциями по {@link CardRepository#EXPORT_FETCH_SIZE}
+ * и сразу пишутся в ответ; после каждой порции буфер сбрасывается клиенту, а контекст персистентности
+ * очищается, поэтому расход памяти не зависит от числа карт.
+ */
+@Service
+public class CardExportService {
+    private static final String CSV_HEADER = "cardNumber,cardholder,cardValidityPeriod,cardStatus,balance";
+
+    private final CardRepository cardRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectWriter cardWriter;
+
+    public CardExportService(CardRepository cardRepository, EntityManager entityManager,
+                             PlatformTransactionManager transactionManager, ObjectMapper objectMapper) {
+        this.cardRepository = cardRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.cardWriter = objectMapper.writerFor(CardDto.class);
+    }
+
+    public enum Format {
+        NDJSON(MediaType.parseMediaType("application/x-ndjson"), "ndjson"),
+        CSV(new MediaType("text", "csv", StandardCharsets.UTF_8), "csv");
+
+        private final MediaType mediaType;
+        private final String extension;
+
+        Format(MediaType mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format of(String format) {
+            for (Format value : values()) {
+                if (value.extension.equalsIgnoreCase(format)) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Формат выгрузки " + format + " не поддерживается");
+        }
+    }
+
+    public void export(Format format, OutputStream outputStream) {
+        // Курсор PostgreSQL с fetch size работает только внутри транзакции (autocommit выключен).
+        transactionTemplate.executeWithoutResult(status -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            try (Stream<Card> cards = cardRepository.streamAllForExport()) {
+                if (format == Format.CSV) {
+                    writer.write(CSV_HEADER);
+                    writer.write('\n');
+                }
+
+                int rows = 0;
+                Iterator<Card> iterator = cards.iterator();
+                while (iterator.hasNext()) {
+                    CardDto card = CardMapper.toCardDto(iterator.next());
+                    writer.write(format == Format.CSV ? toCsv(card) : cardWriter.writeValueAsString(card));
+                    writer.write('\n');
+
+                    if (++rows % CardRepository.EXPORT_FETCH_SIZE == 0) {
+                        writer.flush();
+                        entityManager.clear();
+                    }
+                }
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private static String toCsv(CardDto card) {
+        return card.getCardNumber() + ',' +
+               Csv.field(card.getCardholder()) + ',' +
+               card.getCardValidityPeriod() + ',' +
+               card.getCardStatus() + ',' +
+               card.getBalance().toPlainString();
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.bankcards.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import com.example.bankcards.config.CardImportProperties;
+import com.example.bankcards.dto.CardIssueResultDto;
+import com.example.bankcards.dto.NewCardDto;
+import com.example.bankcards.util.CardFormat;
+import com.example.bankcards.util.Csv;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Импорт карт из CSV ({@code cardNumber,cardholder,cardValidityPeriod}, строка заголовка необязательна).
+ * Файл читается построчно порциями по {@link CardImportProperties#getChunkSize()}: строки порции разбираются
+ * и проверяются по формату, затем порция выпускается через {@link CardIssuanceService} в отдельной транзакции.
+ * Уже зафиксированные порции не откатываются при ошибке в следующих, а повторы номеров между порциями
+ * отсекаются проверкой по БД, поэтому в памяти держится одна порция независимо от размера файла.
+ * <p>
+ * Отчет пишется в CSV {@code line,cardNumber,message} по мере обработки: отклоненные строки и после каждой
+ * порции строка прогресса, начинающаяся с {@code #}.
+ */
+@Service
+@RequiredArgsConstructor
+public class CardImportService {
+    public static final MediaType REPORT_MEDIA_TYPE = new MediaType("text", "csv", StandardCharsets.UTF_8);
+    private static final String CSV_HEADER = "cardNumber,cardholder,cardValidityPeriod";
+    private static final String REPORT_HEADER = "line,cardNumber,message";
+    private static final char BOM = '\uFEFF';
+
+    private final CardIssuanceService cardIssuanceService;
+    private final CardImportProperties properties;
+
+    public void importCards(InputStream inputStream, OutputStream outputStream) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        Progress progress = new Progress();
+        try {
+            writer.write(REPORT_HEADER);
+            writer.write('\n');
+
+            List<Row> chunk = new ArrayList<>(properties.getChunkSize());
+            long lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (++lineNumber == 1) {
+                    if (!line.isEmpty() && line.charAt(0) == BOM) {
+                        line = line.substring(1);
+                    }
+                    if (line.startsWith(CSV_HEADER)) {
+                        continue;
+                    }
+                }
+                if (line.isBlank()) {
+                    continue;
+                }
+
+                chunk.add(new Row(lineNumber, line));
+                if (chunk.size() == properties.getChunkSize()) {
+                    importChunk(chunk, writer, progress);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                importChunk(chunk, writer, progress);
+            }
+            writer.write("# Импорт завершен. " + progress + '\n');
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            // Зафиксированные порции остаются в БД, клиент по отчету видит, с какой строки продолжать
+            abort(writer, progress, e);
+            throw e;
+        }
+    }
+
+    private void importChunk(List<Row> chunk, Writer writer, Progress progress) throws IOException {
+        // Разбор и проверки формата не обращаются к БД; порция разбирается в потоке запроса, чтобы импорт
+        // не занимал общий ForkJoinPool
+        chunk.forEach(Row::parse);
+
+        List<NewCardDto> valid = new ArrayList<>(chunk.size());
+        List<Row> validRows = new ArrayList<>(chunk.size());
+        for (Row row : chunk) {
+            if (row.error == null) {
+                valid.add(row.newCard);
+                validRows.add(row);
+            }
+        }
+
+        if (!valid.isEmpty()) {
+            for (CardIssueResultDto result : cardIssuanceService.createCards(valid)) {
+                if (!result.isCreated()) {
+                    validRows.get(result.getIndex()).error = result.getMessage();
+                }
+            }
+        }
+
+        for (Row row : chunk) {
+            if (row.error == null) {
+                progress.created++;
+            } else {
+                progress.rejected++;
+                writer.write(row.number + "," + Csv.field(row.cardNumber()) + ',' + Csv.field(row.error) + '\n');
+            }
+        }
+        progress.lastLine = chunk.get(chunk.size() - 1).number;
+        writer.write("# " + progress + '\n');
+        writer.flush();
+    }
+
+    private static void abort(Writer writer, Progress progress, RuntimeException e) {
+        try {
+            writer.write("# Импорт прерван после строки " + progress.lastLine + ": " + e.getMessage() + '\n');
+            writer.flush();
+        } catch (IOException ignored) {
+            // Клиент уже отключился, сообщать некому
+        }
+    }
+
+    private static final class Row {
+        private final long number;
+        private final String line;
+        private NewCardDto newCard;
+        private String error;
+
+        private Row(long number, String line) {
+            this.number = number;
+            this.line = line;
+        }
+
+        private void parse() {
+            List<String> fields = Csv.parseLine(line);
+            if (fields == null || fields.size() != 3) {
+                error = "Некорректная строка CSV";
+                return;
+            }
+            newCard = new NewCardDto(fields.get(0).strip(), fields.get(1).strip(), fields.get(2).strip());
+            error = CardFormat.check(newCard);
+        }
+
+        private String cardNumber() {
+            return newCard == null ? "" : newCard.getCardNumber();
+        }
+    }
+
+    private static final class Progress {
+        private long lastLine;
+        private long created;
+        private long rejected;
+
+        @Override
+        public String toString() {
+            return "Обработано строк: " + lastLine + ", выпущено карт: " + created + ", отклонено: " + rejected;
+        }
+    }
+}
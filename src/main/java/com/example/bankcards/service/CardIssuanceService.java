@@ -0,0 +1,109 @@
+package com.example.bankcards.service;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import com.example.bankcards.dto.CardIssueResultDto;
+import com.example.bankcards.dto.NewCardDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.util.CardFormat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Пакетный выпуск карт. Владельцы и уже занятые номера читаются несколькими запросами {@code IN} на весь пакет,
+ * а карты вставляются пачками JDBC: id берутся из последовательности {@code cards_seq} с pooled-оптимизатором,
+ * поэтому Hibernate не ждет ответа БД после каждой вставки.
+ */
+@Service
+@RequiredArgsConstructor
+public class CardIssuanceService {
+    // PostgreSQL принимает не более 32767 параметров в одном запросе
+    private static final int IN_CHUNK_SIZE = 10_000;
+    // Кратно hibernate.jdbc.batch_size; после сброса контекст очищается, чтобы не держать весь пакет в памяти
+    private static final int FLUSH_SIZE = 1_000;
+
+    private final CardRepository cardRepository;
+    private final UserRepository userRepository;
+    private final EntityManager entityManager;
+
+    @Transactional
+    public List<CardIssueResultDto> createCards(List<NewCardDto> newCards) {
+        Map<String, User> users = new HashMap<>();
+        for (User user : inChunks(newCards, NewCardDto::getCardholderName, userRepository::findByUsernameIn)) {
+            users.put(user.getUsername(), user);
+        }
+        Set<String> takenNumbers = new HashSet<>(
+                inChunks(newCards, CardIssuanceService::wellFormedCardNumber, cardRepository::findExistingCardNumbers));
+
+        List<CardIssueResultDto> results = new ArrayList<>(newCards.size());
+        int created = 0;
+        for (int i = 0; i < newCards.size(); i++) {
+            NewCardDto newCard = newCards.get(i);
+            String cardNumber = newCard == null ? null : newCard.getCardNumber();
+            String error = check(newCard, users, takenNumbers);
+            if (error != null) {
+                results.add(new CardIssueResultDto(i, cardNumber, false, error));
+                continue;
+            }
+
+            takenNumbers.add(cardNumber);
+            cardRepository.save(new Card(null, cardNumber, users.get(newCard.getCardholderName()),
+                    newCard.getCardValidityPeriod(), CardStatus.ACTIVE, 0));
+            results.add(new CardIssueResultDto(i, cardNumber, true, null));
+
+            if (++created % FLUSH_SIZE == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        return results;
+    }
+
+    private static String check(NewCardDto newCard, Map<String, User> users, Set<String> takenNumbers) {
+        String error = CardFormat.check(newCard);
+        if (error != null) {
+            return error;
+        }
+        if (!users.containsKey(newCard.getCardholderName())) {
+            return "Пользователь не найден";
+        }
+        if (takenNumbers.contains(newCard.getCardNumber())) {
+            return "Карта с этим номером уже существует";
+        }
+        return null;
+    }
+
+    private static String wellFormedCardNumber(NewCardDto newCard) {
+        // Некорректный номер отклоняется проверкой формата и в запрос занятых номеров не попадает
+        return CardFormat.isCardNumber(newCard.getCardNumber()) ? newCard.getCardNumber() : null;
+    }
+
+    private static <R> List<R> inChunks(List<NewCardDto> newCards, Function<NewCardDto, String> key,
+                                        Function<List<String>, List<R>> query) {
+        List<String> keys = newCards.stream()
+                .filter(Objects::nonNull)
+                .map(key)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+
+        List<R> found = new ArrayList<>();
+        for (int from = 0; from < keys.size(); from += IN_CHUNK_SIZE) {
+            found.addAll(query.apply(keys.subList(from, Math.min(from + IN_CHUNK_SIZE, keys.size()))));
+        }
+        return found;
+    }
+}
@@ -1,41 +1,78 @@
 package com.example.bankcards.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import com.example.bankcards.config.TransferProperties;
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.CardStatusUpdateDto;
+import com.example.bankcards.dto.CardWindow;
 import com.example.bankcards.dto.NewCardDto;
+import com.example.bankcards.dto.TransferRequest;
+import com.example.bankcards.dto.TransferResultDto;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.IdempotencyKey;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.AccessException;
 import com.example.bankcards.exception.CardException;
 import com.example.bankcards.exception.NotFoundException;
 import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.util.CardCursor;
+import com.example.bankcards.util.CardFormat;
 import com.example.bankcards.util.CardMapper;
+import com.example.bankcards.util.CardSortFields;
+import com.example.bankcards.util.Money;
+import com.example.bankcards.util.SortFields;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class CardService {
+    // Каждое поле опирается на индекс из create-index-cards-keyset.sql, на (expires_on, id) для срока действия
+    // или на уникальный индекс номера карты
+    private static final SortFields SORT_FIELDS = CardSortFields.SORT_FIELDS;
+    // Сколько строк блокирует одна транзакция при смене статуса по фильтру
+    static final int STATUS_UPDATE_CHUNK_SIZE = 1_000;
+
     private final CardRepository cardRepository;
     private final UserRepository userRepository;
     private final UserService userService;
+    private final TransferExecutor transferExecutor;
+    private final TransferProperties transferProperties;
+    private final IdempotencyService idempotencyService;
+    private final TotalCountCache totalCountCache;
 
     public CardDto createCard(NewCardDto newCard) {
         User user = userService.getByUsername(newCard.getCardholderName());
-        if (newCard.getCardNumber().isEmpty() || !newCard.getCardNumber().matches("\\d{4} \\d{4} \\d{4} \\d{4}")) {
-            throw new IllegalArgumentException("Указан некорректный номер карты");
+        if (!CardFormat.isCardNumber(newCard.getCardNumber())) {
+            throw new IllegalArgumentException(CardFormat.INVALID_CARD_NUMBER);
         }
         if (cardRepository.findByCardNumber(newCard.getCardNumber()).isPresent()) {
             throw new CardException("Карта с этим номером уже существует");
         }
-        if (!newCard.getCardValidityPeriod().matches("(0[1-9]|1[0-2])/([0-9]{2})")) {
-            throw new IllegalArgumentException("Указан некорректный срок действия карты");
+        if (!CardFormat.isValidityPeriod(newCard.getCardValidityPeriod())) {
+            throw new IllegalArgumentException(CardFormat.INVALID_VALIDITY_PERIOD);
         }
 
         Card card = cardRepository.save(new Card(null, newCard.getCardNumber(), user,
@@ -65,88 +102,406 @@ public class CardService {
         return CardMapper.toCardDto(card);
     }
 
+    /**
+     * Блокирует все активные карты под фильтром. Обновление идет порциями по {@link #STATUS_UPDATE_CHUNK_SIZE}
+     * в отдельных транзакциях, поэтому строки таблицы не блокируются разом; при ошибке уже измененные порции
+     * остаются заблокированными, и повторный вызов продолжит с оставшихся карт.
+     */
+    public CardStatusUpdateDto blockCards(String username, String numberPrefix, String cardValidityPeriod) {
+        return updateStatus(CardStatus.ACTIVE, CardStatus.BLOCKED, username, numberPrefix, cardValidityPeriod);
+    }
+
+    public CardStatusUpdateDto activateCards(String username, String numberPrefix, String cardValidityPeriod) {
+        return updateStatus(CardStatus.BLOCKED, CardStatus.ACTIVE, username, numberPrefix, cardValidityPeriod);
+    }
+
     public void deleteCard(String cardNumber) {
         Card card = getCard(cardNumber);
 
         cardRepository.delete(card);
     }
     
-    public List<CardDto> getCards(String username, String cardStatus, int page, int size, String sortBy,
-                                  String sortMode) {
+    @Transactional(readOnly = true)
+    public Slice<CardDto> getCards(String username, String cardStatus, int page, int size, String sortBy,
+                                   String sortMode) {
         Pageable pageable = splitIntoPages(page, size, sortBy, sortMode);
 
         User cardholder = userRepository.findByUsername(username).orElse(null);
+        // Фильтр по несуществующему владельцу дает пустой список, как и в ReactiveCardRepository.findAll
+        if (cardholder == null && !username.isBlank()) {
+            return new SliceImpl<>(List.of(), pageable, false);
+        }
         CardStatus status = null;
         if (!cardStatus.isBlank()) {
             status = CardStatus.valueOf(cardStatus);
         }
 
-        List<Card> cards;
         if (cardholder != null && !cardStatus.isBlank()) {
-            cards = cardRepository.findByCardholderAndCardStatus(pageable, cardholder, status);
+            return cardRepository.findCardDtosByCardholderAndCardStatus(cardholder, status, pageable);
         } else if (cardholder != null) {
-            cards = cardRepository.findByCardholder(pageable, cardholder);
+            return cardRepository.findCardDtosByCardholder(cardholder, pageable);
         } else if (!cardStatus.isBlank()) {
-            cards = cardRepository.findByCardStatus(pageable, status);
-        } else {
-            return cardRepository.findAll(pageable).stream().map(CardMapper::toCardDto).toList();
+            return cardRepository.findCardDtosByCardStatus(status, pageable);
+        }
+        return cardRepository.findCardDtos(pageable);
+    }
+
+    /**
+     * Действующие карты, срок которых заканчивается в ближайшие {@code days} дней, начиная с ближайших.
+     * Порядок совпадает с индексом {@code (expires_on, id)}.
+     */
+    @Transactional(readOnly = true)
+    public Slice<CardDto> getExpiringCards(int days, int page, int size) {
+        if (days < 0) {
+            throw new IllegalArgumentException("Число дней не может быть отрицательным");
+        }
+        LocalDate today = LocalDate.now();
+        return cardRepository.findCardDtosExpiringBetween(today, today.plusDays(days),
+                PageRequest.of(page, size, Sort.by("expiresOn", "id")));
+    }
+
+    /**
+     * Общее число карт под фильтром {@link #getCards}. Считается отдельно от страниц и кэшируется,
+     * потому что без фильтра это полный проход по таблице cards.
+     */
+    public long countCards(String username, String cardStatus) {
+        User cardholder = userRepository.findByUsername(username).orElse(null);
+        if (cardholder == null && !username.isBlank()) {
+            return 0;
         }
-        return cards.stream().map(CardMapper::toCardDto).toList();
+        CardStatus status = cardStatus.isBlank() ? null : CardStatus.valueOf(cardStatus);
+
+        String key = "cards:" + (cardholder == null ? "" : cardholder.getId()) + ":" + (status == null ? "" : status);
+        return totalCountCache.get(key, () -> {
+            if (cardholder != null && status != null) {
+                return cardRepository.countByCardholderAndCardStatus(cardholder, status);
+            } else if (cardholder != null) {
+                return cardRepository.countByCardholder(cardholder);
+            } else if (status != null) {
+                return cardRepository.countByCardStatus(status);
+            }
+            return cardRepository.count();
+        });
     }
 
+    @Transactional(readOnly = true)
     public List<CardDto> getCardsUser(int page, int size, String sortBy,
                                       String sortMode) {
         Pageable pageable = splitIntoPages(page, size, sortBy, sortMode);
         User user = userService.getCurrentUser();
 
-        return cardRepository.findByCardholder(pageable, user).stream().map(CardMapper::toCardDto).toList();
+        return cardRepository.findCardDtosByCardholder(user, pageable).getContent();
     }
 
-    public void transfersBetweenCards(String cardNumberSender, String cardNumberRecipient, double amount) {
+    /**
+     * Окно карт после курсора {@code after}: в отличие от {@link #getCards(String, String, int, int, String, String)}
+     * база не пропускает {@code page * size} строк, поэтому время ответа не зависит от глубины.
+     */
+    @Transactional(readOnly = true)
+    public CardWindow getCards(String username, String cardStatus, int size, String sortBy, String sortMode,
+                               String after) {
+        Sort sort = SORT_FIELDS.sort(sortBy, sortMode);
+        ScrollPosition position = CardCursor.decode(after, sortBy, sortMode);
+        Limit limit = Limit.of(size);
+
+        User cardholder = userRepository.findByUsername(username).orElse(null);
+        if (cardholder == null && !username.isBlank()) {
+            return new CardWindow(List.of(), null);
+        }
+        Window<Card> window;
+        if (cardholder != null && !cardStatus.isBlank()) {
+            window = cardRepository.findByCardholderAndCardStatus(cardholder, CardStatus.valueOf(cardStatus),
+                    position, limit, sort);
+        } else if (cardholder != null) {
+            window = cardRepository.findByCardholder(cardholder, position, limit, sort);
+        } else if (!cardStatus.isBlank()) {
+            window = cardRepository.findByCardStatus(CardStatus.valueOf(cardStatus), position, limit, sort);
+        } else {
+            window = cardRepository.findBy(position, limit, sort);
+        }
+        return toCardWindow(window, sortBy, sortMode);
+    }
+
+    @Transactional(readOnly = true)
+    public CardWindow getCardsUser(int size, String sortBy, String sortMode, String after) {
+        Sort sort = SORT_FIELDS.sort(sortBy, sortMode);
+        ScrollPosition position = CardCursor.decode(after, sortBy, sortMode);
         User user = userService.getCurrentUser();
-        Card cardSender = getCard(cardNumberSender);
-        Card cardRecipient = getCard(cardNumberRecipient);
 
-        if (cardSender.getCardholder() != user || cardRecipient.getCardholder() != user) {
+        Window<Card> window = cardRepository.findByCardholder(user, position, Limit.of(size), sort);
+        return toCardWindow(window, sortBy, sortMode);
+    }
+
+    public void transfersBetweenCards(String cardNumberSender, String cardNumberRecipient, long amount) {
+        transfersBetweenCards(cardNumberSender, cardNumberRecipient, amount, null);
+    }
+
+    public void transfersBetweenCards(String cardNumberSender, String cardNumberRecipient, long amount,
+                                      String idempotencyKey) {
+        User user = userService.getCurrentUser();
+        if (amount <= 0) {
+            throw new CardException("Сумма перевода должна быть больше нуля");
+        }
+        // Номера из пути запроса попадают в колонки idempotency_keys VARCHAR(19), поэтому формат проверяется
+        // до записи ключа: некорректный номер дает 400, а не ошибку вставки
+        if (!CardFormat.isCardNumber(cardNumberSender) || !CardFormat.isCardNumber(cardNumberRecipient)) {
+            throw new IllegalArgumentException(CardFormat.INVALID_CARD_NUMBER);
+        }
+        if (idempotencyKey == null) {
+            transferExecutor.execute(() -> transfer(user, cardNumberSender, cardNumberRecipient, amount));
+            return;
+        }
+
+        IdempotencyKey key = idempotencyService.newKey(user.getId(), idempotencyKey, cardNumberSender,
+                cardNumberRecipient, amount);
+        if (idempotencyService.isCompleted(key)) {
+            return;
+        }
+        // Ключ записывается в транзакции перевода. Отказ записывается под ключом отдельной транзакцией уже после
+        // отката перевода: в условном режиме зачисление может пройти раньше неудачного списания.
+        try {
+            transferExecutor.execute(() -> {
+                if (idempotencyService.register(key)) {
+                    try {
+                        transfer(user, cardNumberSender, cardNumberRecipient, amount);
+                    } catch (NotFoundException | AccessException | CardException e) {
+                        throw new RejectedTransferException(e);
+                    }
+                }
+            });
+        } catch (RejectedTransferException e) {
+            if (idempotencyService.reject(key, e.getCause())) {
+                throw e.getCause();
+            }
+        }
+        idempotencyService.remember(key);
+    }
+
+    public List<TransferResultDto> transfersBetweenCards(List<TransferRequest> transfers) {
+        User user = userService.getCurrentUser();
+
+        return transferExecutor.executeBatch(() -> transferBatch(user, transfers));
+    }
+
+    public BigDecimal getBalance(String cardNumber) {
+        Long userId = userService.getCurrentUserId();
+        Card card = getCard(cardNumber);
+
+        if (!card.getCardholder().getId().equals(userId)) {
             throw new AccessException("Карта не доступна данному пользователю");
         }
-        if (cardSender.getCardStatus() != CardStatus.ACTIVE || cardRecipient.getCardStatus() != CardStatus.ACTIVE) {
+        if (card.getCardStatus() != CardStatus.ACTIVE) {
             throw new CardException("Карта заблокирована или истек срок ее действия");
         }
-        if (cardSender.getBalance() >= amount) {
-            cardSender.reduceBalance(amount);
-            cardRepository.save(cardSender);
-            cardRecipient.increaseBalance(amount);
-            cardRepository.save(cardRecipient);
+
+        return Money.toDecimal(card.getBalance());
+    }
+
+    private void transfer(User user, String cardNumberSender, String cardNumberRecipient, long amount) {
+        if (transferProperties.getMode() == TransferProperties.Mode.CONDITIONAL) {
+            transferByConditionalUpdate(user, cardNumberSender, cardNumberRecipient, amount);
         } else {
+            transferByLoadedCards(user, cardNumberSender, cardNumberRecipient, amount);
+        }
+    }
+
+    private void transferByLoadedCards(User user, String cardNumberSender, String cardNumberRecipient,
+                                       long amount) {
+        List<String> cardNumbers = List.of(cardNumberSender, cardNumberRecipient);
+        // В пессимистичном режиме строки блокируются в порядке возрастания id, поэтому встречные переводы
+        // не приводят к взаимной блокировке. В оптимистичном режиме конфликт обнаруживается по версии карты.
+        List<Card> found = transferProperties.getMode() == TransferProperties.Mode.OPTIMISTIC
+                ? cardRepository.findByCardNumberIn(cardNumbers)
+                : cardRepository.findByCardNumberInOrderByIdAsc(cardNumbers);
+        Map<String, Card> cards = found.stream()
+                .collect(Collectors.toMap(Card::getCardNumber, Function.identity()));
+        Card cardSender = cards.get(cardNumberSender);
+        Card cardRecipient = cards.get(cardNumberRecipient);
+
+        applyTransfer(user, cardSender, cardRecipient, amount);
+        cardRepository.save(cardSender);
+        cardRepository.save(cardRecipient);
+    }
+
+    private List<TransferResultDto> transferBatch(User user, List<TransferRequest> transfers) {
+        // Некорректные номера в запрос не попадают, их элементы пакета получают "Карта не найдена"
+        Set<String> cardNumbers = new HashSet<>();
+        for (TransferRequest transfer : transfers) {
+            if (CardFormat.isCardNumber(transfer.getCardNumberSender())) {
+                cardNumbers.add(transfer.getCardNumberSender());
+            }
+            if (CardFormat.isCardNumber(transfer.getCardNumberRecipient())) {
+                cardNumbers.add(transfer.getCardNumberRecipient());
+            }
+        }
+        // Все карты пакета читаются одним запросом; изменения сбрасываются при фиксации транзакции пакетами
+        // JDBC (hibernate.jdbc.batch_size). В оптимистичном режиме конфликт обнаруживается по версии карты,
+        // и пакет повторяется целиком. В условном режиме карты блокируются в порядке возрастания id, как в
+        // пессимистичном: условное UPDATE на каждый перевод вернуло бы по два запроса на элемент пакета,
+        // а результаты элементов зависят от балансов, измененных предыдущими элементами.
+        Map<String, Card> cards = (transferProperties.getMode() == TransferProperties.Mode.OPTIMISTIC
+                ? cardRepository.findByCardNumberIn(cardNumbers)
+                : cardRepository.findByCardNumberInOrderByIdAsc(cardNumbers)).stream()
+                .collect(Collectors.toMap(Card::getCardNumber, Function.identity()));
+
+        List<TransferResultDto> results = new ArrayList<>(transfers.size());
+        for (int i = 0; i < transfers.size(); i++) {
+            TransferRequest transfer = transfers.get(i);
+            try {
+                long amount = Money.parse(transfer.getAmount());
+                if (amount <= 0) {
+                    throw new CardException("Сумма перевода должна быть больше нуля");
+                }
+                applyTransfer(user, cards.get(transfer.getCardNumberSender()),
+                        cards.get(transfer.getCardNumberRecipient()), amount);
+                results.add(new TransferResultDto(i, true, null));
+            } catch (NotFoundException | AccessException | CardException | IllegalArgumentException
+                     | ArithmeticException e) {
+                results.add(new TransferResultDto(i, false, e.getMessage()));
+            }
+        }
+        return results;
+    }
+
+    private void applyTransfer(User user, Card cardSender, Card cardRecipient, long amount) {
+        if (cardSender == null || cardRecipient == null) {
+            throw new NotFoundException("Карта не найдена");
+        }
+        if (!isCardholder(cardSender, user) || !isCardholder(cardRecipient, user)) {
+            throw new AccessException("Карта не доступна данному пользователю");
+        }
+        if (cardSender.getCardStatus() != CardStatus.ACTIVE || cardRecipient.getCardStatus() != CardStatus.ACTIVE) {
+            throw new CardException("Карта заблокирована или истек срок ее действия");
+        }
+        if (cardSender.getBalance() < amount) {
             throw new CardException("Недостаточно средств на карте");
         }
+
+        cardRecipient.increaseBalance(amount);
+        cardSender.reduceBalance(amount);
     }
 
-    public double getBalance(String cardNumber) {
-        User user = userService.getCurrentUser();
-        Card card = getCard(cardNumber);
+    private void transferByConditionalUpdate(User user, String cardNumberSender, String cardNumberRecipient,
+                                             long amount) {
+        // Обе строки обновляются в порядке номеров карт, поэтому встречные переводы не приводят к взаимной
+        // блокировке. Если списание не прошло после зачисления, откат транзакции отменит и зачисление.
+        if (cardNumberSender.compareTo(cardNumberRecipient) <= 0) {
+            debit(user, cardNumberSender, amount);
+            credit(user, cardNumberRecipient, amount);
+        } else {
+            credit(user, cardNumberRecipient, amount);
+            debit(user, cardNumberSender, amount);
+        }
+    }
+
+    private void debit(User user, String cardNumber, long amount) {
+        if (cardRepository.debit(cardNumber, user.getId(), amount) == 0) {
+            Card card = checkTransferCard(user, cardNumber);
+            if (card.getBalance() < amount) {
+                throw new CardException("Недостаточно средств на карте");
+            }
+            throw new ConcurrencyFailureException("Карта изменилась во время перевода");
+        }
+    }
+
+    private void credit(User user, String cardNumber, long amount) {
+        if (cardRepository.credit(cardNumber, user.getId(), amount) == 0) {
+            checkTransferCard(user, cardNumber);
+            throw new ConcurrencyFailureException("Карта изменилась во время перевода");
+        }
+    }
 
-        if (card.getCardholder() != user) {
+    private Card checkTransferCard(User user, String cardNumber) {
+        Card card = getCard(cardNumber);
+        if (!isCardholder(card, user)) {
             throw new AccessException("Карта не доступна данному пользователю");
         }
         if (card.getCardStatus() != CardStatus.ACTIVE) {
             throw new CardException("Карта заблокирована или истек срок ее действия");
         }
+        return card;
+    }
 
-        return card.getBalance();
+    private boolean isCardholder(Card card, User user) {
+        return card.getCardholder().getId().equals(user.getId());
     }
 
     private Pageable splitIntoPages(int page, int size, String sortBy, String sortMode) {
-        Sort sort = Sort.by(sortMode.equalsIgnoreCase("desc")
-                ? Sort.Direction.DESC
-                : Sort.Direction.ASC,
-                sortBy);
-        return PageRequest.of(page, size, sort);
+        return PageRequest.of(page, size, SORT_FIELDS.sort(sortBy, sortMode));
+    }
+
+    private CardWindow toCardWindow(Window<Card> window, String sortBy, String sortMode) {
+        List<CardDto> cards = window.stream().map(CardMapper::toCardDto).toList();
+        String nextCursor = null;
+        if (window.hasNext()) {
+            KeysetScrollPosition last = (KeysetScrollPosition) window.positionAt(window.size() - 1);
+            nextCursor = CardCursor.encode(last, sortBy, sortMode);
+        }
+        return new CardWindow(cards, nextCursor);
+    }
+
+    private CardStatusUpdateDto updateStatus(CardStatus from, CardStatus to, String username, String numberPrefix,
+                                             String cardValidityPeriod) {
+        if (username.isBlank() && numberPrefix.isBlank() && cardValidityPeriod.isBlank()) {
+            throw new IllegalArgumentException("Не задан ни один критерий отбора карт");
+        }
+        if (!numberPrefix.isEmpty() && !CardFormat.isCardNumberPrefix(numberPrefix)) {
+            throw new IllegalArgumentException(CardFormat.INVALID_NUMBER_PREFIX);
+        }
+        if (!cardValidityPeriod.isBlank() && !CardFormat.isValidityPeriod(cardValidityPeriod)) {
+            throw new IllegalArgumentException(CardFormat.INVALID_VALIDITY_PERIOD);
+        }
+
+        Long userId = username.isBlank() ? null : userService.getByUsername(username).getId();
+        // Номер хранится числом, поэтому префикс превращается в диапазон номеров по уникальному индексу
+        String digits = numberPrefix.replace(" ", "");
+        String numberFrom = digits.isEmpty() ? null : cardNumberBound(digits, '0');
+        String numberTo = digits.isEmpty() ? null : cardNumberBound(digits, '9');
+        String validityPeriod = cardValidityPeriod.isBlank() ? null : cardValidityPeriod;
+
+        long updated = 0;
+        int chunks = 0;
+        int count;
+        // Неполная порция не означает конец: строки, измененные параллельно, отсекаются повторной проверкой статуса
+        while ((count = cardRepository.updateStatusChunk(from, to, userId, numberFrom, numberTo, validityPeriod,
+                STATUS_UPDATE_CHUNK_SIZE)) > 0) {
+            updated += count;
+            chunks++;
+        }
+        return new CardStatusUpdateDto(to, updated, chunks);
+    }
+
+    private static String cardNumberBound(String digits, char fill) {
+        StringBuilder cardNumber = new StringBuilder(19).append(digits);
+        while (cardNumber.length() < 16) {
+            cardNumber.append(fill);
+        }
+        for (int i = 4; i < 19; i += 5) {
+            cardNumber.insert(i, ' ');
+        }
+        return cardNumber.toString();
     }
 
     private Card getCard(String cardNumber) {
+        // Конвертер номера не пропускает некорректный номер в запрос; такой карты и не может быть
+        if (!CardFormat.isCardNumber(cardNumber)) {
+            throw new NotFoundException("Карта не найдена");
+        }
         return cardRepository.findByCardNumber(cardNumber)
                 .orElseThrow(() -> new NotFoundException("Карта не найдена"));
     }
+
+    /**
+     * Откатывает транзакцию перевода, отклоненного по бизнес-правилам, и передает отказ для записи под ключом.
+     */
+    private static class RejectedTransferException extends RuntimeException {
+        RejectedTransferException(RuntimeException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized RuntimeException getCause() {
+            return (RuntimeException) super.getCause();
+        }
+    }
 }
\ No newline at end of file
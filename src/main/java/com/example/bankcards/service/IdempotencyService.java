@@ -0,0 +1,138 @@
+package com.example.bankcards.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import com.example.bankcards.config.IdempotencyProperties;
+import com.example.bankcards.entity.IdempotencyKey;
+import com.example.bankcards.entity.IdempotencyKeyId;
+import com.example.bankcards.exception.AccessException;
+import com.example.bankcards.exception.CardException;
+import com.example.bankcards.exception.NotFoundException;
+import com.example.bankcards.repository.IdempotencyKeyRepository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Запоминает выполненные переводы по заголовку {@code Idempotency-Key}. Ключ записывается в таблицу
+ * {@code idempotency_keys} в той же транзакции, что и перевод, поэтому повтор запроса не выполняет перевод
+ * второй раз. Отклоненный перевод (карта не найдена, недоступна, заблокирована, недостаточно средств)
+ * записывается под ключом вместе с причиной отказа, и повтор запроса получает тот же отказ, даже если перевод
+ * уже мог бы пройти. Отказы, после которых перевод стоит повторить (исчерпаны попытки, истек тайм-аут),
+ * ключ не занимают. Недавние ключи дополнительно хранятся в ограниченном по размеру и времени кэше, чтобы
+ * повторы не обращались к базе.
+ */
+@Service
+public class IdempotencyService {
+    private static final int MAX_KEY_LENGTH = 64;
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final IdempotencyProperties properties;
+    private final Cache<IdempotencyKeyId, IdempotencyKey> completed;
+
+    public IdempotencyService(IdempotencyKeyRepository idempotencyKeyRepository, IdempotencyProperties properties,
+                              MeterRegistry meterRegistry) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.properties = properties;
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(properties.getCacheSize())
+                .expireAfterWrite(properties.getCacheTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, completed, "idempotency_keys");
+    }
+
+    public IdempotencyKey newKey(Long userId, String key, String cardNumberSender, String cardNumberRecipient,
+                                 long amount) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new CardException("Ключ идемпотентности должен содержать от 1 до 64 символов");
+        }
+        return new IdempotencyKey(new IdempotencyKeyId(userId, key), cardNumberSender, cardNumberRecipient, amount,
+                LocalDateTime.now());
+    }
+
+    /**
+     * Проверяет, известен ли исход перевода по ключу из кэша. Для отклоненного перевода повторяет его отказ.
+     */
+    public boolean isCompleted(IdempotencyKey key) {
+        IdempotencyKey stored = completed.getIfPresent(key.getId());
+        return stored != null && replay(stored, key);
+    }
+
+    /**
+     * Записывает ключ в текущей транзакции. Возвращает {@code false}, если ключ уже сохранен выполненным
+     * переводом, и повторяет отказ, если под ключом сохранен отклоненный перевод.
+     */
+    public boolean register(IdempotencyKey key) {
+        if (insertIfAbsent(key)) {
+            return true;
+        }
+        return !replayStored(key);
+    }
+
+    /**
+     * Записывает отказ под ключом после отката транзакции перевода. Если ключ уже успел сохранить параллельный
+     * запрос, повторяется его исход: сохраненный отказ бросается, а для выполненного перевода возвращается
+     * {@code false}.
+     */
+    @Transactional
+    public boolean reject(IdempotencyKey key, RuntimeException rejection) {
+        IdempotencyKey rejected = key.withRejection(rejectionOf(rejection), rejection.getMessage());
+        if (insertIfAbsent(rejected)) {
+            completed.put(rejected.getId(), rejected);
+            return true;
+        }
+        return !replayStored(key);
+    }
+
+    public void remember(IdempotencyKey key) {
+        completed.put(key.getId(), key);
+    }
+
+    @Transactional
+    @Scheduled(initialDelayString = "${bank.idempotency.purge-interval:PT1H}",
+            fixedDelayString = "${bank.idempotency.purge-interval:PT1H}")
+    public void purgeExpired() {
+        idempotencyKeyRepository.deleteCreatedBefore(LocalDateTime.now().minus(properties.getRetention()));
+    }
+
+    private boolean insertIfAbsent(IdempotencyKey key) {
+        return idempotencyKeyRepository.insertIfAbsent(key.getId().getUserId(), key.getId().getKey(),
+                key.getCardNumberSender(), key.getCardNumberRecipient(), key.getAmount(), key.getCreatedAt(),
+                key.isRejected() ? key.getRejection().name() : null, key.getRejectionMessage()) > 0;
+    }
+
+    private boolean replayStored(IdempotencyKey key) {
+        IdempotencyKey stored = idempotencyKeyRepository.findById(key.getId()).orElseThrow();
+        completed.put(stored.getId(), stored);
+        return replay(stored, key);
+    }
+
+    private boolean replay(IdempotencyKey stored, IdempotencyKey key) {
+        if (!stored.isSameTransfer(key)) {
+            throw new CardException("Ключ идемпотентности уже использован для другого перевода");
+        }
+        if (stored.isRejected()) {
+            throw switch (stored.getRejection()) {
+                case NOT_FOUND -> new NotFoundException(stored.getRejectionMessage());
+                case ACCESS_DENIED -> new AccessException(stored.getRejectionMessage());
+                case REJECTED -> new CardException(stored.getRejectionMessage());
+            };
+        }
+        return true;
+    }
+
+    private static IdempotencyKey.Rejection rejectionOf(RuntimeException rejection) {
+        if (rejection instanceof NotFoundException) {
+            return IdempotencyKey.Rejection.NOT_FOUND;
+        }
+        if (rejection instanceof AccessException) {
+            return IdempotencyKey.Rejection.ACCESS_DENIED;
+        }
+        return IdempotencyKey.Rejection.REJECTED;
+    }
+}
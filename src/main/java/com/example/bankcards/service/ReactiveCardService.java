@@ -0,0 +1,55 @@
+package com.example.bankcards.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.exception.AccessException;
+import com.example.bankcards.exception.CardException;
+import com.example.bankcards.exception.NotFoundException;
+import com.example.bankcards.repository.ReactiveCardRepository;
+import com.example.bankcards.util.Money;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+
+/**
+ * Неблокирующие варианты чтения карт из {@link CardService}. Текущий пользователь определяется до построения
+ * цепочки, пока запрос еще выполняется в потоке с заполненным SecurityContext.
+ */
+@Service
+@RequiredArgsConstructor
+public class ReactiveCardService {
+    private final ReactiveCardRepository reactiveCardRepository;
+    private final UserService userService;
+
+    public Flux<CardDto> getCards(String username, String cardStatus, int page, int size, String sortBy,
+                                  String sortMode) {
+        CardStatus status = cardStatus.isBlank() ? null : CardStatus.valueOf(cardStatus);
+        return reactiveCardRepository.findAll(username.isBlank() ? null : username, status, page, size, sortBy,
+                sortMode);
+    }
+
+    public Flux<CardDto> getCardsUser(int page, int size, String sortBy, String sortMode) {
+        Long userId = userService.getCurrentUserId();
+
+        return reactiveCardRepository.findByCardholderId(userId, page, size, sortBy, sortMode);
+    }
+
+    public Mono<BigDecimal> getBalance(String cardNumber) {
+        Long userId = userService.getCurrentUserId();
+
+        return reactiveCardRepository.findBalanceByCardNumber(cardNumber)
+                .switchIfEmpty(Mono.error(() -> new NotFoundException("Карта не найдена")))
+                .handle((card, sink) -> {
+                    if (!card.getUserId().equals(userId)) {
+                        sink.error(new AccessException("Карта не доступна данному пользователю"));
+                    } else if (card.getCardStatus() != CardStatus.ACTIVE) {
+                        sink.error(new CardException("Карта заблокирована или истек срок ее действия"));
+                    } else {
+                        sink.next(Money.toDecimal(card.getBalance()));
+                    }
+                });
+    }
+}
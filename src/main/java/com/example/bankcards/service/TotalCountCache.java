@@ -0,0 +1,34 @@
+package com.example.bankcards.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import com.example.bankcards.config.ListingProperties;
+import com.example.bankcards.util.AsyncCaches;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Общее число строк для списков админа. Страницы читаются как {@code Slice} без {@code count(*)},
+ * а полный подсчет выполняется только по запросу клиента и переиспользуется в течение ttl.
+ */
+@Component
+public class TotalCountCache {
+    private final AsyncCache<String, Long> totals;
+    private final Timer countLoads;
+
+    public TotalCountCache(ListingProperties properties, MeterRegistry meterRegistry) {
+        this.totals = AsyncCaches.build(Caffeine.newBuilder()
+                .maximumSize(properties.getCountCacheSize())
+                .expireAfterWrite(properties.getCountCacheTtl())
+                .recordStats());
+        this.countLoads = AsyncCaches.monitor(meterRegistry, totals, "listing_totals");
+    }
+
+    public long get(String key, LongSupplier count) {
+        // Подсчет идет в потоке AsyncCaches, а не внутри compute; одновременные запросы ждут один подсчет
+        return AsyncCaches.get(totals, key, countLoads, k -> count.getAsLong());
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.bankcards.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.example.bankcards.config.TransferProperties;
+import com.example.bankcards.exception.CardException;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Выполняет перевод в отдельной транзакции. Конфликт при блокировке строк {@code cards} или при проверке
+ * версии карты приводит к повтору перевода целиком после случайной паузы, но не более
+ * {@code bank.transfer.max-attempts} раз.
+ * <p>
+ * Ожидание блокировки строки ограничено {@code bank.transfer.lock-timeout}: он задается один раз на соединение
+ * пула (см. {@link com.example.bankcards.config.DataSourceConfig}), поэтому перевод не тратит на это отдельный
+ * запрос. Вся транзакция, если задан, ограничена {@code bank.transfer.timeout}. Истекший срок транзакции не повторяется: перевод сразу отклоняется.
+ */
+@Component
+public class TransferExecutor {
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate batchTransactionTemplate;
+    private final int maxAttempts;
+    private final long backoffMillis;
+    private final long maxBackoffMillis;
+    private final Counter retries;
+    private final Counter aborts;
+
+    public TransferExecutor(PlatformTransactionManager transactionManager, TransferProperties properties,
+                            MeterRegistry meterRegistry) {
+        this.transactionTemplate = transactionTemplate(transactionManager, properties.getTimeout());
+        this.batchTransactionTemplate = transactionTemplate(transactionManager, properties.getBatchTimeout());
+        this.maxAttempts = Math.max(1, properties.getMaxAttempts());
+        this.backoffMillis = properties.getBackoff().toMillis();
+        this.maxBackoffMillis = properties.getMaxBackoff().toMillis();
+
+        String mode = properties.getMode().name().toLowerCase();
+        this.retries = Counter.builder("bank.transfer.retries")
+                .description("Повторы перевода после конфликта")
+                .tag("mode", mode)
+                .register(meterRegistry);
+        this.aborts = Counter.builder("bank.transfer.aborts")
+                .description("Переводы, отклоненные после исчерпания попыток")
+                .tag("mode", mode)
+                .register(meterRegistry);
+    }
+
+    public void execute(Runnable transfer) {
+        execute(() -> {
+            transfer.run();
+            return null;
+        });
+    }
+
+    public <T> T execute(Supplier<T> transfer) {
+        return execute(transactionTemplate, transfer);
+    }
+
+    /**
+     * Выполняет пакет переводов. Пакет блокирует и меняет много карт, поэтому ограничен сроком
+     * {@code bank.transfer.batch-timeout}, а не сроком одиночного перевода.
+     */
+    public <T> T executeBatch(Supplier<T> transfers) {
+        return execute(batchTransactionTemplate, transfers);
+    }
+
+    private <T> T execute(TransactionTemplate transactionTemplate, Supplier<T> transfer) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> transfer.get());
+            } catch (TransactionTimedOutException e) {
+                aborts.increment();
+                throw new CardException("Перевод не уложился в отведенное время, повторите попытку позже");
+            } catch (ConcurrencyFailureException | QueryTimeoutException e) {
+                if (attempt >= maxAttempts) {
+                    aborts.increment();
+                    throw new CardException("Не удалось выполнить перевод, повторите попытку позже");
+                }
+                retries.increment();
+                pause(attempt);
+            }
+        }
+    }
+
+    private static TransactionTemplate transactionTemplate(PlatformTransactionManager transactionManager,
+                                                           Duration timeout) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        // Таймаут транзакции задается в целых секундах, меньший срок округляется вверх
+        template.setTimeout(timeout == null || timeout.isZero()
+                ? TransactionDefinition.TIMEOUT_DEFAULT
+                : (int) Math.max(1, timeout.toSeconds()));
+        return template;
+    }
+
+    private void pause(int attempt) {
+        long ceiling = Math.min(maxBackoffMillis, backoffMillis << Math.min(attempt - 1, 20));
+        if (ceiling <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CardException("Перевод прерван");
+        }
+    }
+}
@@ -1,25 +1,51 @@
 package com.example.bankcards.service;
 
-import lombok.RequiredArgsConstructor;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Slice;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import com.example.bankcards.config.UserCacheProperties;
 import com.example.bankcards.dto.UserDto;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.NotFoundException;
 import com.example.bankcards.exception.UserException;
 import com.example.bankcards.repository.UserRepository;
-import com.example.bankcards.util.UserMapper;
-
-import java.util.List;
+import com.example.bankcards.security.TokenRevocationService;
+import com.example.bankcards.util.AsyncCaches;
+import com.example.bankcards.util.SortFields;
 
 @Service
-@RequiredArgsConstructor
 public class UserService {
+    private static final SortFields SORT_FIELDS = SortFields.of().andUnique("username");
+
     private final UserRepository userRepository;
+    private final TokenRevocationService tokenRevocationService;
+    private final TotalCountCache totalCountCache;
+    // Пользователь нужен фильтру JWT, DaoAuthenticationProvider и getCurrentUser, часто несколько раз за запрос.
+    // Кэш сбрасывается при создании и удалении пользователя, остальные изменения ограничены ttl.
+    private final AsyncCache<String, User> usersByUsername;
+    private final Timer userLoads;
+
+    public UserService(UserRepository userRepository, TokenRevocationService tokenRevocationService,
+                       TotalCountCache totalCountCache, UserCacheProperties cacheProperties,
+                       MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.tokenRevocationService = tokenRevocationService;
+        this.totalCountCache = totalCountCache;
+        this.usersByUsername = AsyncCaches.build(Caffeine.newBuilder()
+                .maximumSize(cacheProperties.getMaximumSize())
+                .expireAfterWrite(cacheProperties.getTtl())
+                .recordStats());
+        this.userLoads = AsyncCaches.monitor(meterRegistry, usersByUsername, "users");
+    }
 
     public User createUser(User user) {
         if (userRepository.existsByUsername(user.getUsername())) {
@@ -27,23 +53,31 @@ public class UserService {
         }
 
         user = userRepository.save(user);
+        usersByUsername.synchronous().invalidate(user.getUsername());
         return user;
     }
 
-    public List<UserDto> getUsers(int page, int size, String sortBy, String sortMode) {
-        Sort sort = Sort.by(sortMode.equalsIgnoreCase("desc")
-                        ? Sort.Direction.DESC
-                        : Sort.Direction.ASC,
-                sortBy);
-        Pageable pageable = PageRequest.of(page, size, sort);
+    @Transactional(readOnly = true)
+    public Slice<UserDto> getUsers(int page, int size, String sortBy, String sortMode) {
+        Pageable pageable = PageRequest.of(page, size, SORT_FIELDS.sort(sortBy, sortMode));
+
+        return userRepository.findUserDtos(pageable);
+    }
 
-        return userRepository.findAll(pageable).stream().map(UserMapper::toUserDto).toList();
+    public long countUsers() {
+        return totalCountCache.get("users", userRepository::count);
     }
 
+    // Удаление пользователя и отзыв его токенов фиксируются вместе
+    @Transactional
     public void deleteUser(String username) {
-        User user = getByUsername(username);
+        // Пользователь читается в транзакции удаления, а не через кэш, загрузка которого идет в другом потоке
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new NotFoundException("Пользователь не найден"));
 
         userRepository.delete(user);
+        usersByUsername.synchronous().invalidate(username);
+        tokenRevocationService.revokeUser(user.getId());
     }
 
     public UserDetailsService userDetailsService() {
@@ -51,12 +85,21 @@ public class UserService {
     }
 
     public User getByUsername(String username) {
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new NotFoundException("Пользователь не найден"));
-
+        // Загрузка идет в потоке AsyncCaches, а не внутри compute, поэтому не закрепляет виртуальный поток запроса
+        return AsyncCaches.get(usersByUsername, username, userLoads, key -> userRepository.findByUsername(key)
+                .orElseThrow(() -> new NotFoundException("Пользователь не найден")));
     }
 
     public User getCurrentUser() {
-        return getByUsername(SecurityContextHolder.getContext().getAuthentication().getName());
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        // JwtRequestFilter уже положил пользователя в контекст, повторно читать его из базы не нужно
+        if (authentication.getPrincipal() instanceof User user && user.getId() != null) {
+            return user;
+        }
+        return getByUsername(authentication.getName());
+    }
+
+    public Long getCurrentUserId() {
+        return getCurrentUser().getId();
     }
 }
@@ -0,0 +1,60 @@
+package com.example.bankcards.util;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Кэши Caffeine, которые загружают значения в отдельном виртуальном потоке. Загрузчик синхронного
+ * {@code Cache.get(key, loader)} выполняется внутри synchronized {@code ConcurrentHashMap.compute} и закрепил бы
+ * виртуальный поток запроса на время обращения к базе. У {@link AsyncCache} внутри compute только создается
+ * {@code CompletableFuture}: сама загрузка идет в потоке executor, а параллельные промахи по одному ключу ждут
+ * одну и ту же загрузку.
+ * <p>
+ * {@link CaffeineCacheMetrics} публикует {@code cache.load} только для {@code LoadingCache}, поэтому время и число
+ * загрузок пишет отдельный таймер {@code bank.cache.load} с тегом {@code cache}.
+ * <p>
+ * Загрузчик выполняется вне транзакции и контекста безопасности вызывающего потока.
+ */
+public final class AsyncCaches {
+    private static final Executor LOADER = Executors.newVirtualThreadPerTaskExecutor();
+
+    private AsyncCaches() {
+    }
+
+    public static <K, V> AsyncCache<K, V> build(Caffeine<Object, Object> builder) {
+        return builder.executor(LOADER).buildAsync();
+    }
+
+    /**
+     * Подключает метрики кэша и возвращает таймер его загрузок.
+     */
+    public static Timer monitor(MeterRegistry meterRegistry, AsyncCache<?, ?> cache, String cacheName) {
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, cacheName);
+        return Timer.builder("bank.cache.load")
+                .description("Загрузка значения в кэш при промахе")
+                .tag("cache", cacheName)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Возвращает значение из кэша или дожидается его загрузки. Исключение загрузчика пробрасывается как есть.
+     */
+    public static <K, V> V get(AsyncCache<K, V> cache, K key, Timer loads, Function<? super K, ? extends V> loader) {
+        try {
+            return cache.get(key, k -> loads.record(() -> loader.apply(k))).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
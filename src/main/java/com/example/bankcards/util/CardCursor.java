@@ -0,0 +1,63 @@
+package com.example.bankcards.util;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Непрозрачный курсор для постраничного вывода карт по ключу (keyset). Курсор хранит поле и
+ * направление сортировки, значение этого поля и id последней выданной карты; следующее окно
+ * читается условием {@code (sort_key, id) > (:value, :id)} по индексу, а не через OFFSET.
+ */
+public final class CardCursor {
+    private static final String ID = "id";
+    private static final String SEPARATOR = "\n";
+
+    private CardCursor() {
+    }
+
+    /**
+     * Возвращает позицию, с которой продолжается чтение. Пустой курсор означает первое окно.
+     */
+    public static KeysetScrollPosition decode(String after, String sortBy, String sortMode) {
+        // Проверяет поле сортировки до разбора курсора, как и для первого окна
+        CardSortFields.SORT_FIELDS.sort(sortBy, sortMode);
+        if (after == null || after.isEmpty()) {
+            return ScrollPosition.keyset();
+        }
+
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(after), StandardCharsets.UTF_8).split(SEPARATOR, -1);
+        } catch (IllegalArgumentException e) {
+            throw invalid();
+        }
+        if (parts.length != 4 || !parts[0].equals(sortBy) || !parts[1].equalsIgnoreCase(sortMode)) {
+            throw invalid();
+        }
+
+        Map<String, Object> keys = new LinkedHashMap<>();
+        try {
+            keys.put(sortBy, CardSortFields.SORT_FIELDS.key(sortBy, parts[2]));
+            keys.put(ID, CardSortFields.SORT_FIELDS.key(ID, parts[3]));
+        } catch (IllegalArgumentException e) {
+            throw invalid();
+        }
+        return ScrollPosition.forward(keys);
+    }
+
+    public static String encode(KeysetScrollPosition position, String sortBy, String sortMode) {
+        Map<String, Object> keys = position.getKeys();
+        String token = sortBy + SEPARATOR + sortMode.toLowerCase() + SEPARATOR
+                + keys.get(sortBy) + SEPARATOR + keys.get(ID);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static IllegalArgumentException invalid() {
+        return new IllegalArgumentException("Указан некорректный курсор");
+    }
+}
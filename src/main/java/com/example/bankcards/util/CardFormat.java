@@ -0,0 +1,52 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.dto.NewCardDto;
+
+import java.util.regex.Pattern;
+
+/**
+ * Проверки формата данных карты, общие для выпуска одной карты, пакетного выпуска, импорта и смены статуса
+ * по фильтру. Не обращаются к БД и не зависят от состояния.
+ */
+public final class CardFormat {
+    public static final String INVALID_CARD_NUMBER = "Указан некорректный номер карты";
+    public static final String INVALID_VALIDITY_PERIOD = "Указан некорректный срок действия карты";
+    public static final String INVALID_NUMBER_PREFIX = "Указан некорректный префикс номера карты";
+
+    private static final Pattern CARD_NUMBER = Pattern.compile("\\d{4} \\d{4} \\d{4} \\d{4}");
+    // Начало номера в той же группировке 4-4-4-4: полные группы через пробел и последняя группа из 1-4 цифр
+    private static final Pattern CARD_NUMBER_PREFIX = Pattern.compile("(\\d{4} ){0,3}\\d{1,4}");
+    private static final Pattern VALIDITY_PERIOD = Pattern.compile("(0[1-9]|1[0-2])/([0-9]{2})");
+
+    private CardFormat() {
+    }
+
+    public static boolean isCardNumber(String cardNumber) {
+        return cardNumber != null && CARD_NUMBER.matcher(cardNumber).matches();
+    }
+
+    public static boolean isCardNumberPrefix(String numberPrefix) {
+        return numberPrefix != null && CARD_NUMBER_PREFIX.matcher(numberPrefix).matches();
+    }
+
+    public static boolean isValidityPeriod(String cardValidityPeriod) {
+        return cardValidityPeriod != null && VALIDITY_PERIOD.matcher(cardValidityPeriod).matches();
+    }
+
+    /**
+     * Возвращает текст ошибки для новой карты или {@code null}, если формат верный.
+     */
+    public static String check(NewCardDto newCard) {
+        if (newCard == null || newCard.getCardNumber() == null || newCard.getCardholderName() == null
+                || newCard.getCardValidityPeriod() == null) {
+            return "Не заполнены данные карты";
+        }
+        if (!isCardNumber(newCard.getCardNumber())) {
+            return INVALID_CARD_NUMBER;
+        }
+        if (!isValidityPeriod(newCard.getCardValidityPeriod())) {
+            return INVALID_VALIDITY_PERIOD;
+        }
+        return null;
+    }
+}
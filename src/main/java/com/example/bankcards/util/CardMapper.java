@@ -9,6 +9,6 @@ public class CardMapper {
                            card.getCardholder().getUsername(),
                            card.getCardValidityPeriod(),
                            card.getCardStatus(),
-                           card.getBalance());
+                           Money.toDecimal(card.getBalance()));
     }
 }
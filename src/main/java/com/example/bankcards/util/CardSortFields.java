@@ -0,0 +1,19 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.entity.CardStatus;
+
+/**
+ * Поля сортировки списка карт. Один набор используется в {@code CardService} (JPA), в
+ * {@code ReactiveCardRepository} (SQL) и в {@link CardCursor}, поэтому разрешенные поля нигде не повторяются.
+ */
+public final class CardSortFields {
+    public static final SortFields SORT_FIELDS = SortFields.of("cardValidityPeriod", "cardStatus")
+            .andUnique("cardNumber")
+            .mapped("id", "c.id", Long::valueOf)
+            .mapped("cardNumber", "c.card_number", String::valueOf)
+            .mapped("cardValidityPeriod", "c.expires_on", String::valueOf)
+            .mapped("cardStatus", "c.card_status", CardStatus::valueOf);
+
+    private CardSortFields() {
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.bankcards.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Минимальная поддержка CSV (RFC 4180) для выгрузки и загрузки карт: поля через запятую, значения
+ * с запятыми и кавычками заключаются в кавычки. Перевод строки внутри поля не поддерживается —
+ * в номерах, именах и сроках действия его быть не может.
+ */
+public final class Csv {
+    private Csv() {
+    }
+
+    public static String field(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Разбирает одну строку файла на поля.
+     *
+     * @return поля строки или {@code null}, если кавычки в строке не сбалансированы
+     */
+    public static List<String> parseLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.bankcards.util;
+
+import java.math.BigDecimal;
+
+/**
+ * Денежные суммы хранятся и обрабатываются как {@code long} в минимальных единицах (копейках).
+ * Методы класса не создают объектов, поэтому переводы выполняются точно и без лишнего мусора;
+ * {@link BigDecimal} появляется только при выдаче суммы клиенту.
+ */
+public final class Money {
+    public static final int SCALE = 2;
+    private static final int MINOR_UNITS = 100;
+
+    private Money() {
+    }
+
+    public static long parse(CharSequence value) {
+        int length = value == null ? 0 : value.length();
+        if (length == 0) {
+            throw new IllegalArgumentException("Указана некорректная сумма");
+        }
+
+        int i = 0;
+        boolean negative = value.charAt(0) == '-';
+        if (negative || value.charAt(0) == '+') {
+            i++;
+        }
+
+        long units = 0;
+        int digits = 0;
+        for (; i < length && value.charAt(i) != '.' && value.charAt(i) != ','; i++) {
+            units = Math.addExact(Math.multiplyExact(units, 10), digit(value.charAt(i)));
+            digits++;
+        }
+
+        long minor = 0;
+        int scale = 0;
+        if (i < length) {
+            for (i++; i < length; i++) {
+                if (++scale > SCALE) {
+                    throw new IllegalArgumentException("Сумма может содержать не более двух знаков после запятой");
+                }
+                minor = minor * 10 + digit(value.charAt(i));
+            }
+        }
+        if (digits == 0 && scale == 0) {
+            throw new IllegalArgumentException("Указана некорректная сумма");
+        }
+        for (; scale < SCALE; scale++) {
+            minor *= 10;
+        }
+
+        long amount = Math.addExact(Math.multiplyExact(units, MINOR_UNITS), minor);
+        return negative ? -amount : amount;
+    }
+
+    public static BigDecimal toDecimal(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    public static long add(long minorUnits, long amount) {
+        return Math.addExact(minorUnits, amount);
+    }
+
+    public static long subtract(long minorUnits, long amount) {
+        return Math.subtractExact(minorUnits, amount);
+    }
+
+    private static int digit(char c) {
+        if (c < '0' || c > '9') {
+            throw new IllegalArgumentException("Указана некорректная сумма");
+        }
+        return c - '0';
+    }
+}
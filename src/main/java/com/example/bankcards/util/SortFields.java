@@ -0,0 +1,101 @@
+package com.example.bankcards.util;
+
+import org.springframework.data.domain.Sort;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Поля, по которым разрешено сортировать список. Для каждого поля заранее собран {@link Sort} в обоих
+ * направлениях: неуникальное поле дополняется {@code id}, что совпадает с индексами вида {@code (поле, id)}
+ * и дает однозначный порядок строк. Сортировка по другим полям отклоняется, чтобы запрос не сортировал
+ * всю таблицу.
+ * <p>
+ * Поле может нести колонку SQL для запросов в обход JPA ({@link #orderBy}) и разбор значения ключа из курсора
+ * ({@link #key}), поэтому один набор полей служит и JPA, и R2DBC, и курсору.
+ */
+public final class SortFields {
+    private static final String ID = "id";
+
+    private final Map<String, Field> fields;
+
+    private SortFields(Map<String, Field> fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * Поля с индексом {@code (поле, id)}. Сортировка по {@code id} разрешена всегда.
+     */
+    public static SortFields of(String... fields) {
+        SortFields sortFields = new SortFields(new HashMap<>());
+        sortFields.put(ID, Sort.by(ID), ID, Long::valueOf);
+        for (String field : fields) {
+            sortFields.put(field, Sort.by(field, ID), field, String::valueOf);
+        }
+        return sortFields;
+    }
+
+    /**
+     * Поля с уникальным индексом: порядок по ним и так однозначен, {@code id} не добавляется.
+     */
+    public SortFields andUnique(String... fields) {
+        SortFields sortFields = new SortFields(new HashMap<>(this.fields));
+        for (String field : fields) {
+            sortFields.put(field, Sort.by(field), field, String::valueOf);
+        }
+        return sortFields;
+    }
+
+    /**
+     * Задает колонку SQL и разбор значения ключа для уже объявленного поля.
+     */
+    public SortFields mapped(String field, String column, Function<String, Object> key) {
+        Field declared = field(field);
+        SortFields sortFields = new SortFields(new HashMap<>(this.fields));
+        sortFields.fields.put(field, new Field(declared.ascending(), declared.descending(), column, key));
+        return sortFields;
+    }
+
+    public Sort sort(String sortBy, String sortMode) {
+        Field field = field(sortBy);
+        return isDescending(sortMode) ? field.descending() : field.ascending();
+    }
+
+    /**
+     * Выражение {@code ORDER BY} для SQL. Порядок всегда завершается колонкой {@code id}, чтобы страницы
+     * не пересекались и при неуникальных значениях поля.
+     */
+    public String orderBy(String sortBy, String sortMode) {
+        String direction = isDescending(sortMode) ? " DESC" : " ASC";
+        String column = field(sortBy).column();
+        String id = field(ID).column();
+        return column.equals(id) ? column + direction : column + direction + ", " + id + direction;
+    }
+
+    /**
+     * Значение ключа сортировки, разобранное из строки курсора.
+     */
+    public Object key(String sortBy, String value) {
+        return field(sortBy).key().apply(value);
+    }
+
+    private Field field(String sortBy) {
+        Field field = fields.get(sortBy);
+        if (field == null) {
+            throw new IllegalArgumentException("Сортировка по полю " + sortBy + " не поддерживается");
+        }
+        return field;
+    }
+
+    private static boolean isDescending(String sortMode) {
+        return sortMode.equalsIgnoreCase("desc");
+    }
+
+    private void put(String field, Sort sort, String column, Function<String, Object> key) {
+        fields.put(field, new Field(sort.ascending(), sort.descending(), column, key));
+    }
+
+    private record Field(Sort ascending, Sort descending, String column, Function<String, Object> key) {
+    }
+}
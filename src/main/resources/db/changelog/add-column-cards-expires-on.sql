@@ -0,0 +1,9 @@
+ALTER TABLE cards ADD COLUMN IF NOT EXISTS expires_on DATE;
+
+-- Карта действует до последнего дня месяца MM/yy; годы yy относятся к 2000-м, как и при разборе в Card
+UPDATE cards
+SET expires_on = (make_date(2000 + substr(card_validity_period, 4, 2)::int, substr(card_validity_period, 1, 2)::int, 1)
+                  + INTERVAL '1' MONTH - INTERVAL '1' DAY)::date
+WHERE expires_on IS NULL AND card_validity_period ~ '^(0[1-9]|1[0-2])/[0-9]{2}$';
+
+CREATE INDEX IF NOT EXISTS ix_cards_expires_on_id ON cards (expires_on, id);
\ No newline at end of file
@@ -0,0 +1,3 @@
+-- Отклоненный перевод хранится под ключом вместе с причиной отказа, чтобы повтор запроса вернул тот же отказ
+ALTER TABLE idempotency_keys ADD COLUMN IF NOT EXISTS rejection VARCHAR(16);
+ALTER TABLE idempotency_keys ADD COLUMN IF NOT EXISTS rejection_message VARCHAR(255);
\ No newline at end of file
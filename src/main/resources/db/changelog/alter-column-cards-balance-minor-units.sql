@@ -0,0 +1 @@
+ALTER TABLE cards ALTER COLUMN balance TYPE BIGINT USING ROUND(balance * 100)::BIGINT;
\ No newline at end of file
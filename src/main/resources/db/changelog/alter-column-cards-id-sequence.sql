@@ -0,0 +1,6 @@
+ALTER TABLE cards ALTER COLUMN id DROP IDENTITY;
+
+CREATE SEQUENCE IF NOT EXISTS cards_seq INCREMENT BY 50;
+
+-- Pooled-оптимизатор Hibernate считает значение последовательности верхней границей блока из 50 id
+SELECT setval('cards_seq', (SELECT COALESCE(MAX(id), 0) FROM cards) + 50, false);
\ No newline at end of file
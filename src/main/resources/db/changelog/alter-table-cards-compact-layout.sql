@@ -0,0 +1,17 @@
+-- Номер карты: 16 цифр без пробелов в BIGINT (8 байт вместо 20); уникальный индекс перестраивается вместе с колонкой
+ALTER TABLE cards ALTER COLUMN card_number TYPE BIGINT USING replace(card_number, ' ', '')::bigint;
+
+-- Коды статусов совпадают с CardStatusConverter. Неизвестный статус не превращается молча в NULL: приведение
+-- текста к SMALLINT прерывает миграцию ошибкой, в которой видно исходное значение
+ALTER TABLE cards ALTER COLUMN card_status TYPE SMALLINT USING CASE card_status
+    WHEN 'ACTIVE' THEN 1
+    WHEN 'BLOCKED' THEN 2
+    WHEN 'EXPIRED' THEN 3
+    ELSE CAST('Неизвестный статус карты: ' || card_status AS SMALLINT)
+END;
+ALTER TABLE cards ADD CONSTRAINT ck_cards_card_status CHECK (card_status IN (1, 2, 3));
+
+-- Срок действия хранится только датой expires_on; индекс (expires_on, id) заменяет индекс по строке MM/yy
+DROP INDEX IF EXISTS ix_cards_card_validity_period_id;
+ALTER TABLE cards ALTER COLUMN expires_on SET NOT NULL;
+ALTER TABLE cards DROP COLUMN card_validity_period;
\ No newline at end of file
@@ -0,0 +1 @@
+CREATE INDEX IF NOT EXISTS ix_cards_user_id_card_status_id ON cards (user_id, card_status, id);
\ No newline at end of file
@@ -0,0 +1,3 @@
+CREATE INDEX IF NOT EXISTS ix_cards_user_id_id ON cards (user_id, id);
+CREATE INDEX IF NOT EXISTS ix_cards_card_status_id ON cards (card_status, id);
+CREATE INDEX IF NOT EXISTS ix_cards_card_validity_period_id ON cards (card_validity_period, id);
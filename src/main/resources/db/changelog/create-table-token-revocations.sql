@@ -0,0 +1,7 @@
+CREATE TABLE IF NOT EXISTS token_revocations (
+    user_id BIGINT NOT NULL,
+    revoked_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    CONSTRAINT pk_token_revocations PRIMARY KEY (user_id)
+);
+
+CREATE INDEX IF NOT EXISTS ix_token_revocations_revoked_at ON token_revocations (revoked_at);
\ No newline at end of file
@@ -0,0 +1,74 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.config.JwtProperties;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.TokenRevocationRepository;
+import com.example.bankcards.security.JwtRequestFilter;
+import com.example.bankcards.security.JwtService;
+import com.example.bankcards.security.TokenRevocationService;
+import com.example.bankcards.security.VerifiedTokenCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускная способность {@link JwtRequestFilter} с кэшем проверенных токенов и без него при 16 потоках.
+ * Фильтр работает в режиме stateless-principal, чтобы в замер не попадало обращение к базе.
+ * Запуск: {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.example.bankcards.benchmark.JwtRequestFilterBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(16)
+@Fork(1)
+public class JwtRequestFilterBenchmark {
+    private static final FilterChain CHAIN = (request, response) -> { };
+
+    @Param({"true", "false"})
+    private boolean tokenCacheEnabled;
+
+    private JwtRequestFilter filter;
+    private String authorization;
+
+    @Setup
+    public void setUp() {
+        JwtService jwtService = new JwtService();
+        JwtProperties properties = new JwtProperties();
+        properties.setStatelessPrincipal(true);
+        properties.setTokenCacheEnabled(tokenCacheEnabled);
+        // Отзывов нет: после первого промаха проверка отзыва отвечает из кэша
+        TokenRevocationService tokenRevocationService = new TokenRevocationService(
+                Mockito.mock(TokenRevocationRepository.class), properties, new SimpleMeterRegistry());
+        filter = new JwtRequestFilter(jwtService, null, properties, tokenRevocationService,
+                new VerifiedTokenCache(properties, new SimpleMeterRegistry()));
+        authorization = JwtRequestFilter.BEARER
+                + jwtService.generateToken(new User(1L, "Anton", "bgyfygvbhjnug", Role.USER));
+    }
+
+    @Benchmark
+    public Object doFilter() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(JwtRequestFilter.AUTH, authorization);
+        filter.doFilter(request, new MockHttpServletResponse(), CHAIN);
+        Object authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtRequestFilterBenchmark.class.getSimpleName()).build()).run();
+    }
+}
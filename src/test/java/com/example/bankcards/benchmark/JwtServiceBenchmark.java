@@ -0,0 +1,66 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.security.JwtClaims;
+import com.example.bankcards.security.JwtService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.crypto.SecretKey;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Стоимость проверки JWT на один запрос: прежняя схема фильтра (ключ и парсер создаются заново, токен
+ * разбирается трижды) против однократного разбора в {@link JwtService#parseToken(String)}.
+ * Запуск: {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.example.bankcards.benchmark.JwtServiceBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtServiceBenchmark {
+    private static final String KEY = "2hfd5ds1lvng6y3tf2avjhb3jn8fdanaochrb61424fhrano7";
+
+    private final JwtService jwtService = new JwtService();
+    private final User user = new User(1L, "Anton", "bgyfygvbhjnug", Role.USER);
+    private String token;
+
+    @Setup
+    public void setUp() {
+        token = jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public boolean parseThreeTimes() {
+        String username = legacyExtractClaim(token, Claims::getSubject);
+        return legacyExtractClaim(token, Claims::getSubject).equals(username)
+               && !legacyExtractClaim(token, Claims::getExpiration).before(new Date());
+    }
+
+    @Benchmark
+    public boolean parseOnce() {
+        JwtClaims claims = jwtService.parseToken(token);
+        return jwtService.isTokenValid(claims, user);
+    }
+
+    private static <T> T legacyExtractClaim(String token, Function<Claims, T> claimsResolver) {
+        SecretKey key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(KEY));
+        return claimsResolver.apply(Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtServiceBenchmark.class.getSimpleName()).build()).run();
+    }
+}
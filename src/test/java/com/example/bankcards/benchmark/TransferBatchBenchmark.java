@@ -0,0 +1,106 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.BankCardsApplication;
+import com.example.bankcards.dto.TransferRequest;
+import com.example.bankcards.dto.TransferResultDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.CardService;
+import com.example.bankcards.util.Money;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Время выполнения {@code transfers} переводов по одному (отдельная транзакция на каждый) и одним пакетом
+ * ({@code POST /user/cards/transfers/batch}). Переводы идут по кругу между четырьмя картами, поэтому балансы
+ * между итерациями не меняются. Приложение запускается на H2.
+ * Запуск: {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.example.bankcards.benchmark.TransferBatchBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransferBatchBenchmark {
+    private static final int CARDS = 4;
+
+    @Param({"200"})
+    private int transfers;
+
+    private ConfigurableApplicationContext context;
+    private CardService cardService;
+    private UsernamePasswordAuthenticationToken authentication;
+    private List<TransferRequest> requests;
+
+    @Setup
+    public void setUp() {
+        SpringApplication application = new SpringApplication(BankCardsApplication.class);
+        application.setAdditionalProfiles("test", "h2");
+        context = application.run("--spring.main.web-application-type=none", "--logging.level.root=WARN");
+        cardService = context.getBean(CardService.class);
+
+        User user = context.getBean(UserRepository.class)
+                .save(new User(null, "Anton", "bgyfygvbhjnug", Role.USER));
+        List<String> cardNumbers = new ArrayList<>();
+        for (int i = 1; i <= CARDS; i++) {
+            Card card = context.getBean(CardRepository.class)
+                    .save(new Card(null, "1111 1111 1111 111" + i, user, "12/26", CardStatus.ACTIVE, 1_000_000));
+            cardNumbers.add(card.getCardNumber());
+        }
+        authentication = new UsernamePasswordAuthenticationToken(user.getUsername(), null);
+
+        requests = new ArrayList<>(transfers);
+        for (int i = 0; i < transfers; i++) {
+            requests.add(new TransferRequest(cardNumbers.get(i % CARDS), cardNumbers.get((i + 1) % CARDS), "1.25"));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int single() {
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        try {
+            for (TransferRequest request : requests) {
+                cardService.transfersBetweenCards(request.getCardNumberSender(), request.getCardNumberRecipient(),
+                        Money.parse(request.getAmount()));
+            }
+            return requests.size();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    @Benchmark
+    public List<TransferResultDto> batch() {
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        try {
+            return cardService.transfersBetweenCards(requests);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TransferBatchBenchmark.class.getSimpleName()).build()).run();
+    }
+}
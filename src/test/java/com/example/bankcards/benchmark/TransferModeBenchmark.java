@@ -0,0 +1,97 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.BankCardsApplication;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.CardException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.CardService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускная способность конкурентных переводов в каждом режиме блокировок ({@code bank.transfer.mode}):
+ * {@code THREADS} потоков переводят случайные суммы между {@code CARDS} картами одного владельца, так что
+ * потоки постоянно конфликтуют за одни и те же строки. Перевод, отклоненный после исчерпания попыток,
+ * тоже считается операцией; доля таких отказов видна по метрике {@code bank.transfer.aborts}.
+ * Приложение запускается на H2.
+ * Запуск: {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.example.bankcards.benchmark.TransferModeBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(TransferModeBenchmark.THREADS)
+@Fork(1)
+public class TransferModeBenchmark {
+    static final int THREADS = 8;
+    private static final int CARDS = 4;
+
+    @Param({"conditional", "pessimistic", "optimistic"})
+    private String mode;
+
+    private ConfigurableApplicationContext context;
+    private CardService cardService;
+    private UsernamePasswordAuthenticationToken authentication;
+    private final List<String> cardNumbers = new ArrayList<>();
+
+    @Setup
+    public void setUp() {
+        SpringApplication application = new SpringApplication(BankCardsApplication.class);
+        application.setAdditionalProfiles("test", "h2");
+        context = application.run("--spring.main.web-application-type=none", "--logging.level.root=WARN",
+                "--bank.transfer.mode=" + mode);
+        cardService = context.getBean(CardService.class);
+
+        User user = context.getBean(UserRepository.class)
+                .save(new User(null, "Anton", "bgyfygvbhjnug", Role.USER));
+        for (int i = 1; i <= CARDS; i++) {
+            Card card = context.getBean(CardRepository.class)
+                    .save(new Card(null, "1111 1111 1111 111" + i, user, "12/26", CardStatus.ACTIVE,
+                            1_000_000_000));
+            cardNumbers.add(card.getCardNumber());
+        }
+        authentication = new UsernamePasswordAuthenticationToken(user.getUsername(), null);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public boolean transfer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int from = random.nextInt(CARDS);
+        int to = (from + 1 + random.nextInt(CARDS - 1)) % CARDS;
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        try {
+            cardService.transfersBetweenCards(cardNumbers.get(from), cardNumbers.get(to), random.nextLong(1, 100));
+            return true;
+        } catch (CardException e) {
+            return false;
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TransferModeBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.BankCardsApplication;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.JwtRequestFilter;
+import com.example.bankcards.security.JwtService;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Сравнивает обработку запросов на платформенных и виртуальных потоках Tomcat. Приложение запускается дважды
+ * на H2 ({@code spring.threads.virtual.enabled=false/true}), затем {@value #CLIENTS} клиентов одновременно
+ * запрашивают баланс карты. Выводятся пропускная способность и перцентили задержки.
+ * Запуск: {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.example.bankcards.benchmark.VirtualThreadsBenchmark}.
+ */
+public class VirtualThreadsBenchmark {
+    private static final int CLIENTS = 1_000;
+    private static final int REQUESTS_PER_CLIENT = 20;
+
+    public static void main(String[] args) throws Exception {
+        for (boolean virtual : new boolean[]{false, true}) {
+            run(virtual);
+        }
+    }
+
+    private static void run(boolean virtual) throws Exception {
+        SpringApplication application = new SpringApplication(BankCardsApplication.class);
+        application.setAdditionalProfiles("test", "h2");
+        try (ConfigurableApplicationContext context = application.run(
+                "--server.port=0",
+                "--server.tomcat.accept-count=" + CLIENTS,
+                "--spring.threads.virtual.enabled=" + virtual,
+                "--logging.level.root=WARN")) {
+            User user = context.getBean(UserRepository.class)
+                    .save(new User(null, "Anton", "bgyfygvbhjnug", Role.USER));
+            Card card = context.getBean(CardRepository.class)
+                    .save(new Card(null, "1111 1111 1111 1111", user, "12/26", CardStatus.ACTIVE, 10_000));
+            String authorization = JwtRequestFilter.BEARER + context.getBean(JwtService.class).generateToken(user);
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            URI uri = URI.create("http://localhost:" + port + "/user/cards/"
+                    + URLEncoder.encode(card.getCardNumber(), StandardCharsets.UTF_8).replace("+", "%20")
+                    + "/balance");
+
+            measure(virtual ? "virtual" : "platform", uri, authorization);
+        }
+    }
+
+    private static void measure(String mode, URI uri, String authorization) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri).header(JwtRequestFilter.AUTH, authorization).build();
+        long[] latencies = new long[CLIENTS * REQUESTS_PER_CLIENT];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient httpClient = HttpClient.newBuilder().executor(clients).build()) {
+            long startedAt = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < CLIENTS; i++) {
+                futures.add(clients.submit(() -> {
+                    for (int j = 0; j < REQUESTS_PER_CLIENT; j++) {
+                        long requestStartedAt = System.nanoTime();
+                        HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                        latencies[next.getAndIncrement()] = System.nanoTime() - requestStartedAt;
+                        if (response.statusCode() != 200) {
+                            failed.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            double seconds = (System.nanoTime() - startedAt) / 1e9;
+
+            Arrays.sort(latencies);
+            System.out.printf("%-8s clients=%d requests=%d failed=%d throughput=%.0f req/s p50=%.1f ms p99=%.1f ms%n",
+                    mode, CLIENTS, latencies.length, failed.get(), latencies.length / seconds,
+                    latencies[latencies.length / 2] / 1e6, latencies[latencies.length * 99 / 100] / 1e6);
+        }
+    }
+}
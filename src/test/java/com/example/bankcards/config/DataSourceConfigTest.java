@@ -0,0 +1,39 @@
+package com.example.bankcards.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class DataSourceConfigTest {
+    private final DataSourceConfig dataSourceConfig = new DataSourceConfig();
+
+    @Test
+    void dataSource_PostgresConnectionsGetLockTimeout() {
+        TransferProperties transferProperties = new TransferProperties();
+        transferProperties.setLockTimeout(Duration.ofMillis(1500));
+
+        try (HikariDataSource dataSource = dataSourceConfig.dataSource(
+                dataSourceProperties("jdbc:postgresql://localhost:5432/bank_rest_db"), transferProperties)) {
+            assertEquals("SET lock_timeout = 1500", dataSource.getConnectionInitSql());
+        }
+    }
+
+    @Test
+    void dataSource_H2KeepsUrlLockTimeout() {
+        try (HikariDataSource dataSource = dataSourceConfig.dataSource(
+                dataSourceProperties("jdbc:h2:mem:bank_rest;LOCK_TIMEOUT=5000"), new TransferProperties())) {
+            assertNull(dataSource.getConnectionInitSql());
+        }
+    }
+
+    private static DataSourceProperties dataSourceProperties(String url) {
+        DataSourceProperties dataSourceProperties = new DataSourceProperties();
+        dataSourceProperties.setUrl(url);
+        return dataSourceProperties;
+    }
+}
@@ -2,33 +2,58 @@ package com.example.bankcards.controller;
 
 import com.example.bankcards.config.SecurityConfig;
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.CardIssueResultDto;
+import com.example.bankcards.dto.CardStatusUpdateDto;
+import com.example.bankcards.dto.CardWindow;
+import com.example.bankcards.dto.NewCardBatchRequest;
 import com.example.bankcards.dto.NewCardDto;
 import com.example.bankcards.dto.UserDto;
 import com.example.bankcards.entity.CardStatus;
 import com.example.bankcards.entity.Role;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.CardException;
+import com.example.bankcards.exception.NotFoundException;
+import com.example.bankcards.service.CardExportService;
+import com.example.bankcards.service.CardImportService;
+import com.example.bankcards.service.CardIssuanceService;
 import com.example.bankcards.service.CardService;
+import com.example.bankcards.util.CardFormat;
+import com.example.bankcards.util.Money;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ActiveProfiles("test")
@@ -45,15 +70,24 @@ public class AdminControllerCardTest {
     @MockBean
     private CardService cardService;
 
+    @MockBean
+    private CardExportService cardExportService;
+
+    @MockBean
+    private CardIssuanceService cardIssuanceService;
+
+    @MockBean
+    private CardImportService cardImportService;
+
     //@MockBean
     //private UserService userService;
 
     User user = new User(1L, "Anton", "bgyfygvbhjnug", Role.USER);
     UserDto userDto = new UserDto("Anton", Role.USER);
     CardDto cardDto = new CardDto("1111 1111 1111 1111", user.getUsername(), "12/26",
-            CardStatus.ACTIVE, 0);
+            CardStatus.ACTIVE, Money.toDecimal(0));
     CardDto cardDtoBlock = new CardDto("1111 1111 1111 1111", user.getUsername(), "12/26",
-            CardStatus.BLOCKED, 0);
+            CardStatus.BLOCKED, Money.toDecimal(0));
     NewCardDto newCardDto = new NewCardDto("1111 1111 1111 1111", user.getUsername(), "12/26");
 
     @Test
@@ -151,7 +185,7 @@ public class AdminControllerCardTest {
     @WithMockUser(authorities = {"ADMIN"})
     void getCards_Successful() throws Exception {
         when(cardService.getCards("", "", 0, 10, "id", "asc"))
-                .thenReturn(List.of(cardDto));
+                .thenReturn(new SliceImpl<>(List.of(cardDto), PageRequest.of(0, 10), false));
 
         mockMvc.perform(MockMvcRequestBuilders.get("/admin/cards")
                         .param("username", "")
@@ -161,7 +195,270 @@ public class AdminControllerCardTest {
                         .param("sortBy", "id")
                         .param("sortMode", "asc"))
                 .andExpect(status().isOk())
+                .andExpect(header().string("X-Has-Next", "false"))
+                .andExpect(header().doesNotExist("X-Total-Count"))
                 .andExpect(jsonPath("$.length()").value(1))
                 .andExpect(jsonPath("$[0].cardNumber").value(cardDto.getCardNumber()));
+
+        verify(cardService, never()).countCards(any(), any());
+    }
+
+    @Test
+    @WithMockUser(authorities = {"ADMIN"})
+    void getCards_WithTotal() throws Exception {
+        when(cardService.getCards("", "BLOCKED", 0, 1, "id", "asc"))
+                .thenReturn(new SliceImpl<>(List.of(cardDtoBlock), PageRequest.of(0, 1), true));
+        when(cardService.countCards("", "BLOCKED"))
+                .thenReturn(3L);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/admin/cards")
+                        .param("cardStatus", "BLOCKED")
+                        .param("size", "1")
+                        .param("withTotal", "true"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Has-Next", "true"))
+                .andExpect(header().string("X-Total-Count", "3"))
+                .andExpect(jsonPath("$.length()").value(1));
+    }
+
+    @Test
+    @WithMockUser(authorities = {"ADMIN"})
+    void getCards_WithCursor() throws Exception {
+        when(cardService.getCards("", "", 3, "cardStatus", "desc", ""))
+                .thenReturn(new CardWindow(List.of(cardDto), "next"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/admin/cards")
+                        .param("size", "3")
+                        .param("sortBy", "cardStatus")
+                        .param("sortMode", "desc")
+                        .param("after", ""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(CardWindow.NEXT_CURSOR_HEADER, "next"))
+                .andExpect(header().doesNotExist("X-Has-Next"))
+                .andExpect(jsonPath("$[0].cardNumber").value(cardDto.getCardNumber()));
+    }
+
+    @Test
+    @WithMockUser(authorities = {"ADMIN"})
+    void getCards_LastWindow() throws Exception {
+        when(cardService.getCards("", "", 10, "id", "asc", "next"))
+                .thenReturn(new CardWindow(List.of(cardDto), null));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/admin/cards")
+                        .param("after", "next"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(CardWindow.NEXT_CURSOR_HEADER))
+                .andExpect(jsonPath("$.length()").value(1));
+    }
+
+    @Test
+    @WithMockUser(authorities = {"ADMIN"})
+    void getCards_InvalidCursor() throws Exception {
+        when(cardService.getCards("", "", 10, "cardStatus", "asc", "next"))
+                .thenThrow(new IllegalArgumentException("Указан некорректный курсор"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/admin/cards")
+                        .param("sortBy", "cardStatus")
+                        .param("after", "next"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(authorities = {"ADMIN"})
+    void exportCards_Csv() throws Exception {
+        doAnswer(invocation -> {
+            invocation.getArgument(1, OutputStream.class).write("cardNumber\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(cardExportService).export(any(), any());
+
+        MvcResult started = mockMvc.perform(MockMvcRequestBuilders.get("/admin/cards/export").param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv;charset=UTF-8"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"cards.csv\""))
+                .andExpect(content().string("cardNumber\n"));
+
+        verify(cardExportService).export(any(), any());
+    }
+
+    @Test
+    @WithMockUser(authorities = {"ADMIN"})
+    void exportCards_UnknownFormat() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/admin/cards/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+
+        verify(cardExportService, never()).export(any(), any());
+    }
+
+    @Test
+    @WithMockUser(authorities = {"USER"})
+    void exportCards_Forbidden() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/admin/cards/export"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(authorities = {"ADMIN"})
+    void createCards_Successful() throws Exception {
+        when(cardIssuanceService.createCards(any()))
+                .thenReturn(List.of(new CardIssueResultDto(0, newCardDto.getCardNumber(), false,
+                        "Карта с этим номером уже существует")));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/admin/cards/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new NewCardBatchRequest(List.of(newCardDto)))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].created").value(false))
+                .andExpect(jsonPath("$[0].message").value("Карта с этим номером уже существует"));
+    }
+
+    @Test
+    @WithMockUser(authorities = {"ADMIN"})
+    void createCards_EmptyBatch() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/admin/cards/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new NewCardBatchRequest(Collections.emptyList()))))
+                .andExpect(status().isBadRequest());
+
+        verify(cardIssuanceService, never()).createCards(any());
+    }
+
+    @Test
+    @WithMockUser(authorities = {"USER"})
+    void createCards_Forbidden() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/admin/cards/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new NewCardBatchRequest(List.of(newCardDto)))))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(authorities = {"ADMIN"})
+    void importCards_StreamsReport() throws Exception {
+        doAnswer(invocation -> {
+            String csv = new String(invocation.getArgument(0, InputStream.class).readAllBytes(), StandardCharsets.UTF_8);
+            invocation.getArgument(1, OutputStream.class).write(("# " + csv).getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(cardImportService).importCards(any(), any());
+
+        MvcResult started = mockMvc.perform(MockMvcRequestBuilders.multipart("/admin/cards/import")
+                        .file(new MockMultipartFile("file", "cards.csv", "text/csv",
+                                "1111 1111 1111 1111,Anton,12/26".getBytes(StandardCharsets.UTF_8))))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv;charset=UTF-8"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"import-report.csv\""))
+                .andExpect(content().string("# 1111 1111 1111 1111,Anton,12/26"));
+    }
+
+    @Test
+    @WithMockUser(authorities = {"USER"})
+    void importCards_Forbidden() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.multipart("/admin/cards/import")
+                        .file(new MockMultipartFile("file", "cards.csv", "text/csv", new byte[0])))
+                .andExpect(status().isForbidden());
+
+        verify(cardImportService, never()).importCards(any(), any());
+    }
+
+    @Test
+    @WithMockUser(authorities = {"ADMIN"})
+    void blockCards_Successful() throws Exception {
+        when(cardService.blockCards("Anton", "", ""))
+                .thenReturn(new CardStatusUpdateDto(CardStatus.BLOCKED, 1_003, 2));
+
+        mockMvc.perform(MockMvcRequestBuilders.patch("/admin/cards/block").param("username", "Anton"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cardStatus").value("BLOCKED"))
+                .andExpect(jsonPath("$.updated").value(1_003))
+                .andExpect(jsonPath("$.chunks").value(2));
+    }
+
+    @Test
+    @WithMockUser(authorities = {"ADMIN"})
+    void activateCards_Successful() throws Exception {
+        when(cardService.activateCards("Ivan", "2222 1111", "01/27"))
+                .thenReturn(new CardStatusUpdateDto(CardStatus.ACTIVE, 1, 1));
+
+        mockMvc.perform(MockMvcRequestBuilders.patch("/admin/cards/activate")
+                        .param("username", "Ivan")
+                        .param("numberPrefix", "2222 1111")
+                        .param("cardValidityPeriod", "01/27"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cardStatus").value("ACTIVE"))
+                .andExpect(jsonPath("$.updated").value(1));
+    }
+
+    @Test
+    @WithMockUser(authorities = {"ADMIN"})
+    void blockCards_WithoutCriteria() throws Exception {
+        when(cardService.blockCards("", "", ""))
+                .thenThrow(new IllegalArgumentException("Не задан ни один критерий отбора карт"));
+
+        mockMvc.perform(MockMvcRequestBuilders.patch("/admin/cards/block"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(authorities = {"ADMIN"})
+    void blockCards_MalformedNumberPrefix() throws Exception {
+        when(cardService.blockCards("", "2222-1111", ""))
+                .thenThrow(new IllegalArgumentException(CardFormat.INVALID_NUMBER_PREFIX));
+
+        mockMvc.perform(MockMvcRequestBuilders.patch("/admin/cards/block")
+                        .param("numberPrefix", "2222-1111"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(CardFormat.INVALID_NUMBER_PREFIX));
+    }
+
+    @Test
+    @WithMockUser(authorities = {"ADMIN"})
+    void blockCards_UserNotFound() throws Exception {
+        when(cardService.blockCards("Nobody", "", ""))
+                .thenThrow(new NotFoundException("Пользователь не найден"));
+
+        mockMvc.perform(MockMvcRequestBuilders.patch("/admin/cards/block").param("username", "Nobody"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser(authorities = {"USER"})
+    void blockCards_Forbidden() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.patch("/admin/cards/block").param("username", "Anton"))
+                .andExpect(status().isForbidden());
+
+        verify(cardService, never()).blockCards(any(), any(), any());
+    }
+
+    @Test
+    @WithMockUser(authorities = {"ADMIN"})
+    void getExpiringCards_Successful() throws Exception {
+        when(cardService.getExpiringCards(7, 0, 1))
+                .thenReturn(new SliceImpl<>(List.of(cardDto), PageRequest.of(0, 1), true));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/admin/cards/expiring")
+                        .param("days", "7")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Has-Next", "true"))
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].cardNumber").value(cardDto.getCardNumber()));
+    }
+
+    @Test
+    @WithMockUser(authorities = {"ADMIN"})
+    void getExpiringCards_NegativeDays() throws Exception {
+        when(cardService.getExpiringCards(-1, 0, 10))
+                .thenThrow(new IllegalArgumentException("Число дней не может быть отрицательным"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/admin/cards/expiring").param("days", "-1"))
+                .andExpect(status().isBadRequest());
     }
 }
@@ -1,8 +1,14 @@
 package com.example.bankcards.controller;
 
+import com.example.bankcards.config.JwtProperties;
 import com.example.bankcards.dto.UserDto;
 import com.example.bankcards.entity.Role;
 import com.example.bankcards.security.JwtService;
+import com.example.bankcards.security.TokenRevocationService;
+import com.example.bankcards.security.VerifiedTokenCache;
+import com.example.bankcards.service.CardExportService;
+import com.example.bankcards.service.CardImportService;
+import com.example.bankcards.service.CardIssuanceService;
 import com.example.bankcards.service.CardService;
 import com.example.bankcards.service.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -11,6 +17,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
@@ -39,15 +47,33 @@ public class AdminControllerUserTest {
     @MockBean
     private CardService cardService;
 
+    @MockBean
+    private CardExportService cardExportService;
+
+    @MockBean
+    private CardIssuanceService cardIssuanceService;
+
+    @MockBean
+    private CardImportService cardImportService;
+
     @MockBean
     private JwtService jwtService;
 
+    @MockBean
+    private JwtProperties jwtProperties;
+
+    @MockBean
+    private TokenRevocationService tokenRevocationService;
+
+    @MockBean
+    private VerifiedTokenCache verifiedTokenCache;
+
     UserDto userDto = new UserDto("Anton", Role.USER);
 
     @Test
     void getUsers_Successful() throws Exception {
         when(userService.getUsers(0, 10, "id", "asc"))
-                .thenReturn(List.of(userDto));
+                .thenReturn(new SliceImpl<>(List.of(userDto), PageRequest.of(0, 10), false));
 
         mockMvc.perform(MockMvcRequestBuilders.get("/admin/users")
                         .param("page", "0")
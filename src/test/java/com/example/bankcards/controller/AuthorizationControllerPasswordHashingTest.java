@@ -0,0 +1,97 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.dto.AuthorizationRequest;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Вход через настоящую цепочку DaoAuthenticationProvider → BoundedPasswordEncoder при единственном разрешении
+ * на хеширование.
+ */
+@ActiveProfiles({"test", "h2"})
+@SpringBootTest(properties = {
+        "bank.password-hashing.max-concurrent=1",
+        "bank.password-hashing.acquire-timeout=0s",
+        "bank.password-hashing.retry-after=2s"})
+@AutoConfigureMockMvc
+class AuthorizationControllerPasswordHashingTest {
+    // BCrypt с cost 14: проверка любого пароля против этого хеша занимает около секунды и все это время
+    // держит единственное разрешение
+    private static final String SLOW_HASH = "$2a$14$" + "a".repeat(22) + "b".repeat(31);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.save(new User(null, "Anton", SLOW_HASH, Role.USER));
+        userRepository.save(new User(null, "Igorr", new BCryptPasswordEncoder(4).encode("password"), Role.USER));
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void authorization_PasswordHashingBusy() throws Exception {
+        CompletableFuture<Integer> slowLogin = CompletableFuture.supplyAsync(() -> {
+            try {
+                return authorize("Anton").andReturn().getResponse().getStatus();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("bank.password.hashing.active").gauge().value() < 1) {
+            assertTrue(System.nanoTime() < deadline, "Хеширование не началось");
+            Thread.onSpinWait();
+        }
+
+        authorize("Igorr")
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "2"));
+
+        assertEquals(403, slowLogin.get(30, TimeUnit.SECONDS));
+        authorize("Igorr")
+                .andExpect(status().isOk());
+    }
+
+    private ResultActions authorize(String username) throws Exception {
+        return mockMvc.perform(MockMvcRequestBuilders.post("/authorization/authorization")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new AuthorizationRequest(username, "password"))));
+    }
+}
@@ -4,6 +4,7 @@ import com.example.bankcards.dto.AuthorizationRequest;
 import com.example.bankcards.dto.RegistrationRequest;
 import com.example.bankcards.entity.Role;
 import com.example.bankcards.exception.NotFoundException;
+import com.example.bankcards.exception.ServiceBusyException;
 import com.example.bankcards.exception.UserException;
 import com.example.bankcards.service.AuthorizationService;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -17,6 +18,8 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import java.time.Duration;
+
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -105,4 +108,17 @@ class AuthorizationControllerTest {
                         .content(objectMapper.writeValueAsString(authorizationRequest)))
                 .andExpect(status().isNotFound());
     }
+
+    @Test
+    void authorization_PasswordHashingBusy() throws Exception {
+        when(authorizationService.authorization(authorizationRequest))
+                .thenThrow(new ServiceBusyException("Сервис перегружен, повторите попытку позже",
+                        Duration.ofSeconds(2)));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/authorization/authorization")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(authorizationRequest)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "2"));
+    }
 }
@@ -0,0 +1,152 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ActiveProfiles({"test", "h2"})
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ReactiveCardControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @BeforeEach
+    void setUp() {
+        User anton = userRepository.save(new User(null, "Anton", "bgyfygvbhjnug", Role.USER));
+        User igorr = userRepository.save(new User(null, "Igorr", "bgyfygvbhjnug", Role.USER));
+        cardRepository.save(new Card(null, "1111 1111 1111 1111", anton, "12/26", CardStatus.ACTIVE, 12_345));
+        cardRepository.save(new Card(null, "1111 1111 1111 1112", anton, "12/26", CardStatus.BLOCKED, 500));
+        cardRepository.save(new Card(null, "1111 1111 1111 1113", igorr, "12/26", CardStatus.ACTIVE, 100));
+    }
+
+    @AfterEach
+    void tearDown() {
+        cardRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @WithMockUser(username = "Anton", authorities = {"USER"})
+    void getCardsUser_Successful() throws Exception {
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/user/reactive/cards")
+                        .param("sortBy", "cardStatus"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].cardNumber").value("1111 1111 1111 1111"))
+                .andExpect(jsonPath("$[0].cardholder").value("Anton"))
+                .andExpect(jsonPath("$[0].balance").value(123.45))
+                .andExpect(jsonPath("$[1].cardStatus").value("BLOCKED"));
+    }
+
+    @Test
+    @WithMockUser(username = "Anton", authorities = {"USER"})
+    void getBalance_Successful() throws Exception {
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders
+                        .get("/user/reactive/cards/{cardNumber}/balance", "1111 1111 1111 1111"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string("123.45"));
+    }
+
+    @Test
+    @WithMockUser(username = "Anton", authorities = {"USER"})
+    void getBalance_UserIsNotCardholder() throws Exception {
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders
+                        .get("/user/reactive/cards/{cardNumber}/balance", "1111 1111 1111 1113"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(username = "Anton", authorities = {"USER"})
+    void getBalance_NotFound() throws Exception {
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders
+                        .get("/user/reactive/cards/{cardNumber}/balance", "1111 1111 1111 9999"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", authorities = {"ADMIN"})
+    void getCards_FilteredByStatus() throws Exception {
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/admin/reactive/cards")
+                        .param("cardStatus", "ACTIVE"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[1].cardholder").value("Igorr"));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", authorities = {"ADMIN"})
+    void getCards_UnknownUsernameEmptyOnBothStacks() throws Exception {
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/admin/reactive/cards")
+                        .param("username", "Nobody"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+        mockMvc.perform(MockMvcRequestBuilders.get("/admin/cards")
+                        .param("username", "Nobody")
+                        .param("withTotal", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0))
+                .andExpect(header().string("X-Has-Next", "false"))
+                .andExpect(header().string("X-Total-Count", "0"));
+        mockMvc.perform(MockMvcRequestBuilders.get("/admin/cards")
+                        .param("username", "Nobody")
+                        .param("after", ""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+
+    @Test
+    @WithMockUser(username = "Anton", authorities = {"USER"})
+    void getCards_UserRoleIsNotAdmin() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/admin/reactive/cards"))
+                .andExpect(status().isForbidden());
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.IdempotencyKeyRepository;
+import com.example.bankcards.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ActiveProfiles({"test", "h2"})
+@SpringBootTest
+@AutoConfigureMockMvc
+public class UserControllerIdempotencyTest {
+    private static final String TRANSFER_URL = "/user/cards/transfers/{amount}/from/{from}/to/{to}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    private Card cardFirst;
+    private Card cardSecond;
+
+    @BeforeEach
+    void setUp() {
+        User user = userRepository.save(new User(null, "Anton", "bgyfygvbhjnug", Role.USER));
+        cardFirst = cardRepository.save(new Card(null, "1111 1111 1111 1111", user, "12/26",
+                CardStatus.ACTIVE, 10_000));
+        cardSecond = cardRepository.save(new Card(null, "1111 1111 1111 1112", user, "12/26",
+                CardStatus.ACTIVE, 0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        idempotencyKeyRepository.deleteAll();
+        cardRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @WithMockUser(username = "Anton", authorities = {"USER"})
+    void transfersBetweenCards_RepeatedKeyTransfersOnce() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(MockMvcRequestBuilders.patch(TRANSFER_URL, "12.50", cardFirst.getCardNumber(),
+                                    cardSecond.getCardNumber())
+                            .header("Idempotency-Key", "key-1"))
+                    .andExpect(status().isNoContent());
+        }
+
+        assertEquals(8_750, cardRepository.findByCardNumber(cardFirst.getCardNumber()).orElseThrow().getBalance());
+        assertEquals(1_250, cardRepository.findByCardNumber(cardSecond.getCardNumber()).orElseThrow().getBalance());
+        assertEquals(1, idempotencyKeyRepository.count());
+    }
+
+    @Test
+    @WithMockUser(username = "Anton", authorities = {"USER"})
+    void transfersBetweenCards_KeyReusedForAnotherTransfer() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.patch(TRANSFER_URL, "12.50", cardFirst.getCardNumber(),
+                                cardSecond.getCardNumber())
+                        .header("Idempotency-Key", "key-2"))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(MockMvcRequestBuilders.patch(TRANSFER_URL, "20", cardFirst.getCardNumber(),
+                                cardSecond.getCardNumber())
+                        .header("Idempotency-Key", "key-2"))
+                .andExpect(status().isBadRequest());
+
+        assertEquals(8_750, cardRepository.findByCardNumber(cardFirst.getCardNumber()).orElseThrow().getBalance());
+    }
+
+    @Test
+    @WithMockUser(username = "Anton", authorities = {"USER"})
+    void transfersBetweenCards_RejectedTransferReplayed() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.patch(TRANSFER_URL, "150", cardFirst.getCardNumber(),
+                                cardSecond.getCardNumber())
+                        .header("Idempotency-Key", "key-4"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Недостаточно средств на карте"));
+
+        Card topUp = cardRepository.findByCardNumber(cardFirst.getCardNumber()).orElseThrow();
+        topUp.increaseBalance(10_000);
+        cardRepository.save(topUp);
+
+        // Повтор с тем же ключом получает сохраненный отказ, хотя средств на перевод уже хватает
+        mockMvc.perform(MockMvcRequestBuilders.patch(TRANSFER_URL, "150", cardFirst.getCardNumber(),
+                                cardSecond.getCardNumber())
+                        .header("Idempotency-Key", "key-4"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Недостаточно средств на карте"));
+
+        assertEquals(20_000, cardRepository.findByCardNumber(cardFirst.getCardNumber()).orElseThrow().getBalance());
+        assertEquals(0, cardRepository.findByCardNumber(cardSecond.getCardNumber()).orElseThrow().getBalance());
+        assertEquals(1, idempotencyKeyRepository.count());
+    }
+
+    @Test
+    @WithMockUser(username = "Anton", authorities = {"USER"})
+    void transfersBetweenCards_IncorrectCardNumberWithKey() throws Exception {
+        // Номер длиннее колонки card_number_sender не должен доходить до вставки ключа
+        mockMvc.perform(MockMvcRequestBuilders.patch(TRANSFER_URL, "12.50", "1111 1111 1111 1111 1111",
+                                cardSecond.getCardNumber())
+                        .header("Idempotency-Key", "key-3"))
+                .andExpect(status().isBadRequest());
+
+        assertEquals(0, idempotencyKeyRepository.count());
+    }
+}
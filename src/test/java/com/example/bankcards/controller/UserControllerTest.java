@@ -1,6 +1,9 @@
 package com.example.bankcards.controller;
 import com.example.bankcards.config.SecurityConfig;
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.TransferBatchRequest;
+import com.example.bankcards.dto.TransferRequest;
+import com.example.bankcards.dto.TransferResultDto;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.CardStatus;
 import com.example.bankcards.entity.Role;
@@ -8,6 +11,8 @@ import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.AccessException;
 import com.example.bankcards.exception.NotFoundException;
 import com.example.bankcards.service.CardService;
+import com.example.bankcards.util.Money;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -20,10 +25,12 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.security.test.context.support.WithMockUser;
 
+import java.math.BigDecimal;
 import java.util.List;
 
-import static org.mockito.Mockito.doNothing;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @ActiveProfiles("test")
@@ -34,6 +41,9 @@ public class UserControllerTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @MockBean
     private CardService cardService;
 
@@ -43,7 +53,7 @@ public class UserControllerTest {
     Card cardSecond = new Card(2L, "1111 1111 1111 1112", user, "12/26",
             CardStatus.ACTIVE, 100);
     CardDto cardDto = new CardDto("1111 1111 1111 1111", user.getUsername(), "12/26",
-            CardStatus.ACTIVE, 100);
+            CardStatus.ACTIVE, Money.toDecimal(100));
 
     @Test
     @WithMockUser(authorities = {"USER"})
@@ -76,22 +86,78 @@ public class UserControllerTest {
     @WithMockUser(authorities = {"USER"})
     void transfersBetweenCards_Successful() throws Exception {
         doNothing().when(cardService)
-                .transfersBetweenCards(cardFirst.getCardNumber(), cardSecond.getCardNumber(), 50);
+                .transfersBetweenCards(cardFirst.getCardNumber(), cardSecond.getCardNumber(), 5025, null);
 
         mockMvc.perform(MockMvcRequestBuilders
-                        .patch("/user/cards/transfers/50/from/1111 1111 1111 1111/to/1111 1111 1111 1112"))
+                        .patch("/user/cards/transfers/50.25/from/1111 1111 1111 1111/to/1111 1111 1111 1112"))
                 .andExpect(status().isNoContent());
+
+        verify(cardService).transfersBetweenCards(cardFirst.getCardNumber(), cardSecond.getCardNumber(), 5025, null);
+    }
+
+    @Test
+    @WithMockUser(authorities = {"USER"})
+    void transfersBetweenCards_WithIdempotencyKey() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders
+                        .patch("/user/cards/transfers/50.25/from/1111 1111 1111 1111/to/1111 1111 1111 1112")
+                        .header("Idempotency-Key", "key-1"))
+                .andExpect(status().isNoContent());
+
+        verify(cardService).transfersBetweenCards(cardFirst.getCardNumber(), cardSecond.getCardNumber(), 5025,
+                "key-1");
+    }
+
+    @Test
+    @WithMockUser(authorities = {"USER"})
+    void transfersBetweenCards_IncorrectAmount() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders
+                        .patch("/user/cards/transfers/50.255/from/1111 1111 1111 1111/to/1111 1111 1111 1112"))
+                .andExpect(status().isBadRequest());
+
+        verify(cardService, never()).transfersBetweenCards(any(), any(), anyLong(), any());
+    }
+
+    @Test
+    @WithMockUser(authorities = {"USER"})
+    void transfersBetweenCardsBatch_Successful() throws Exception {
+        List<TransferRequest> transfers = List.of(
+                new TransferRequest(cardFirst.getCardNumber(), cardSecond.getCardNumber(), "50"),
+                new TransferRequest(cardSecond.getCardNumber(), cardFirst.getCardNumber(), "500"));
+
+        when(cardService.transfersBetweenCards(transfers))
+                .thenReturn(List.of(new TransferResultDto(0, true, null),
+                        new TransferResultDto(1, false, "Недостаточно средств на карте")));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/user/cards/transfers/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new TransferBatchRequest(transfers))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].completed").value(true))
+                .andExpect(jsonPath("$[1].completed").value(false));
+    }
+
+    @Test
+    @WithMockUser(authorities = {"USER"})
+    void transfersBetweenCardsBatch_EmptyBatch() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/user/cards/transfers/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new TransferBatchRequest(List.of()))))
+                .andExpect(status().isBadRequest());
+
+        verify(cardService, never()).transfersBetweenCards(any());
     }
 
     @Test
     @WithMockUser(authorities = {"USER"})
     void getBalance_Successful() throws Exception {
         when(cardService.getBalance("1111 1111 1111 1111"))
-                .thenReturn(100.0);
+                .thenReturn(new BigDecimal("100.00"));
 
         mockMvc.perform(MockMvcRequestBuilders
                         .get("/user/cards/1111 1111 1111 1111/balance"))
-                .andExpect(status().isOk());
+                .andExpect(status().isOk())
+                .andExpect(content().string("100.00"));
     }
 
     @Test
@@ -120,7 +186,7 @@ public class UserControllerTest {
     @WithMockUser(authorities = {"USER"})
     void blockCard_Successful() throws Exception {
         CardDto cardDtoBlock = new CardDto("1111 1111 1111 1111", user.getUsername(), "12/26",
-                CardStatus.BLOCKED, 100);
+                CardStatus.BLOCKED, Money.toDecimal(100));
 
         when(cardService.blockCard("1111 1111 1111 1111"))
                 .thenReturn(cardDtoBlock);
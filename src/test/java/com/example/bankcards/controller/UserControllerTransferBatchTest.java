@@ -0,0 +1,92 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.dto.TransferBatchRequest;
+import com.example.bankcards.dto.TransferRequest;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ActiveProfiles({"test", "h2"})
+@SpringBootTest
+@AutoConfigureMockMvc
+public class UserControllerTransferBatchTest {
+    private static final int TRANSFERS = 200;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final List<String> cardNumbers = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        User user = userRepository.save(new User(null, "Anton", "bgyfygvbhjnug", Role.USER));
+        for (int i = 1; i <= 4; i++) {
+            Card card = cardRepository.save(new Card(null, "1111 1111 1111 111" + i, user, "12/26",
+                    CardStatus.ACTIVE, 1_000_000));
+            cardNumbers.add(card.getCardNumber());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        cardRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @WithMockUser(username = "Anton", authorities = {"USER"})
+    void transfersBetweenCardsBatch_PerItemResultsAndBalances() throws Exception {
+        // Переводы по кругу не меняют балансы, последние два элемента проверяют отказ и итоговое списание
+        List<TransferRequest> transfers = new ArrayList<>();
+        for (int i = 0; i < TRANSFERS; i++) {
+            transfers.add(new TransferRequest(cardNumbers.get(i % cardNumbers.size()),
+                    cardNumbers.get((i + 1) % cardNumbers.size()), "1.25"));
+        }
+        transfers.add(new TransferRequest(cardNumbers.get(0), cardNumbers.get(1), "20000.00"));
+        transfers.add(new TransferRequest(cardNumbers.get(0), cardNumbers.get(1), "100.00"));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/user/cards/transfers/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new TransferBatchRequest(transfers))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(TRANSFERS + 2))
+                .andExpect(jsonPath("$[?(@.completed == false)].index").value(TRANSFERS))
+                .andExpect(jsonPath("$[%d].message", TRANSFERS).value("Недостаточно средств на карте"))
+                .andExpect(jsonPath("$[%d].completed", TRANSFERS + 1).value(true));
+
+        assertEquals(List.of(990_000L, 1_010_000L, 1_000_000L, 1_000_000L), cardNumbers.stream()
+                .map(cardNumber -> cardRepository.findByCardNumber(cardNumber).orElseThrow().getBalance())
+                .toList());
+    }
+}
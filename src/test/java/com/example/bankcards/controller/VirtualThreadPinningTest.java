@@ -0,0 +1,120 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.JwtRequestFilter;
+import com.example.bankcards.security.JwtService;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверяет, что путь запроса (Tomcat на виртуальных потоках, фильтр JWT, сервисы, JPA и пул соединений)
+ * не закрепляет виртуальный поток на платформенном: JFR-событие {@code jdk.VirtualThreadPinned} возникает, если
+ * виртуальный поток блокируется внутри synchronized. Запросы идут по HTTP на запущенный сервер, поэтому их
+ * обрабатывает executor Tomcat из {@code spring.threads.virtual.enabled}. Пул соединений уменьшен, чтобы запросы
+ * ждали соединение; срок ожидания увеличен, чтобы все запросы дождались его, а не получили отказ.
+ */
+@ActiveProfiles({"test", "h2"})
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.threads.virtual.enabled=true",
+        "spring.datasource.hikari.maximum-pool-size=2",
+        "spring.datasource.hikari.connection-timeout=30000"
+})
+public class VirtualThreadPinningTest {
+    private static final int CLIENTS = 200;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private String authorization;
+    private Card card;
+
+    @BeforeEach
+    void setUp() {
+        User user = userRepository.save(new User(null, "Anton", "bgyfygvbhjnug", Role.USER));
+        card = cardRepository.save(new Card(null, "1111 1111 1111 1111", user, "12/26", CardStatus.ACTIVE, 10_000));
+        authorization = JwtRequestFilter.BEARER + jwtService.generateToken(user);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cardRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void getBalance_NoPinnedVirtualThreads() throws Exception {
+        Queue<String> pinned = new ConcurrentLinkedQueue<>();
+        try (RecordingStream recording = new RecordingStream()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.onEvent("jdk.VirtualThreadPinned", event -> pinned.add(describe(event)));
+            recording.startAsync();
+
+            try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+                 HttpClient httpClient = HttpClient.newBuilder().executor(clients).build()) {
+                URI balance = URI.create("http://localhost:" + port + "/user/cards/"
+                        + card.getCardNumber().replace(" ", "%20") + "/balance");
+                HttpRequest request = HttpRequest.newBuilder(balance)
+                        .header(JwtRequestFilter.AUTH, authorization)
+                        .build();
+                List<Future<HttpResponse<String>>> responses = new ArrayList<>();
+                for (int i = 0; i < CLIENTS; i++) {
+                    responses.add(clients.submit(() -> httpClient.send(request, HttpResponse.BodyHandlers.ofString())));
+                }
+                for (Future<HttpResponse<String>> response : responses) {
+                    HttpResponse<String> result = response.get();
+                    assertEquals(200, result.statusCode(), result.body());
+                }
+            }
+            recording.stop();
+        }
+
+        assertTrue(pinned.isEmpty(), () -> "Виртуальные потоки закреплены:\n" + String.join("\n", pinned));
+    }
+
+    private static String describe(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return event.toString();
+        }
+        return event.getStackTrace().getFrames().stream()
+                .limit(25)
+                .map(frame -> "  at " + frame.getMethod().getType().getName() + "." + frame.getMethod().getName())
+                .reduce("pinned " + event.getDuration(), (a, b) -> a + "\n" + b);
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.bankcards.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CardConvertersTest {
+    private final CardNumberConverter cardNumber = new CardNumberConverter();
+    private final CardStatusConverter cardStatus = new CardStatusConverter();
+    private final CardValidityPeriodConverter validityPeriod = new CardValidityPeriodConverter();
+
+    @Test
+    void cardNumber_RoundTrip() {
+        assertEquals(1111222233334444L, cardNumber.convertToDatabaseColumn("1111 2222 3333 4444"));
+        assertEquals("1111 2222 3333 4444", cardNumber.convertToEntityAttribute(1111222233334444L));
+        assertEquals(12L, cardNumber.convertToDatabaseColumn("0000 0000 0000 0012"));
+        assertEquals("0000 0000 0000 0012", cardNumber.convertToEntityAttribute(12L));
+        assertNull(cardNumber.convertToDatabaseColumn(null));
+        assertNull(cardNumber.convertToEntityAttribute(null));
+    }
+
+    @Test
+    void cardNumber_MalformedIsNotWritten() {
+        assertThrows(IllegalArgumentException.class, () -> cardNumber.convertToDatabaseColumn("1111-2222-3333-4444"));
+        assertThrows(IllegalArgumentException.class, () -> cardNumber.convertToDatabaseColumn("1111222233334444"));
+        assertThrows(IllegalArgumentException.class, () -> cardNumber.convertToDatabaseColumn("**** **** **** 4444"));
+    }
+
+    @Test
+    void cardNumber_MalformedLookupMatchesNothing() {
+        assertEquals(1111222233334444L, CardNumberConverter.toLookupValue("1111 2222 3333 4444"));
+        assertEquals(-1L, CardNumberConverter.toLookupValue("1111-2222-3333-4444"));
+        assertEquals(-1L, CardNumberConverter.toLookupValue("**** **** **** 4444"));
+        assertEquals(-1L, CardNumberConverter.toLookupValue(null));
+    }
+
+    @Test
+    void cardStatus_StableCodes() {
+        assertEquals((short) 1, cardStatus.convertToDatabaseColumn(CardStatus.ACTIVE));
+        assertEquals((short) 2, cardStatus.convertToDatabaseColumn(CardStatus.BLOCKED));
+        assertEquals((short) 3, cardStatus.convertToDatabaseColumn(CardStatus.EXPIRED));
+        for (CardStatus status : CardStatus.values()) {
+            assertEquals(status, cardStatus.convertToEntityAttribute(cardStatus.convertToDatabaseColumn(status)));
+        }
+        assertThrows(IllegalStateException.class, () -> cardStatus.convertToEntityAttribute((short) 9));
+    }
+
+    @Test
+    void validityPeriod_LastDayOfMonth() {
+        assertEquals(LocalDate.of(2026, 12, 31), validityPeriod.convertToDatabaseColumn("12/26"));
+        assertEquals(LocalDate.of(2028, 2, 29), validityPeriod.convertToDatabaseColumn("02/28"));
+        assertEquals("02/28", validityPeriod.convertToEntityAttribute(LocalDate.of(2028, 2, 29)));
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверяет планы запросов списков карт: фильтры по владельцу и статусу должны идти поиском по индексу,
+ * а не полным проходом по таблице. В EXPLAIN H2 передается SQL, который реально сгенерировал Hibernate.
+ */
+@ActiveProfiles({"test", "h2"})
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.example.bankcards.repository.CardRepositoryQueryPlanTest$CapturingInspector")
+public class CardRepositoryQueryPlanTest {
+    private static final List<String> STATEMENTS = new ArrayList<>();
+    private static final Sort BY_ID = Sort.by("id");
+    private static final Pattern CARDS_ACCESS = Pattern.compile("\"PUBLIC\"\\.\"CARDS\" \"[^\"]+\"\\s*/\\* (.*?) \\*/",
+            Pattern.DOTALL);
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(new User(null, "Anton", "bgyfygvbhjnug", Role.USER));
+        List<Card> cards = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            cards.add(new Card(null, String.format("1111 1111 1111 %04d", i), user, "12/26",
+                    i % 10 == 0 ? CardStatus.BLOCKED : CardStatus.ACTIVE, i));
+        }
+        cardRepository.saveAll(cards);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @AfterEach
+    void tearDown() {
+        cardRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void findCardDtosByCardholder_UsesIndex() {
+        assertIndexLookup(() -> cardRepository.findCardDtosByCardholder(user, PageRequest.of(0, 10, BY_ID)),
+                List.of("USER_ID"), user.getId(), 11);
+    }
+
+    @Test
+    void findCardDtosByCardStatus_UsesIndex() {
+        assertIndexLookup(() -> cardRepository.findCardDtosByCardStatus(CardStatus.BLOCKED,
+                PageRequest.of(0, 10, BY_ID)), List.of("CARD_STATUS"), CardStatus.BLOCKED.name(), 11);
+    }
+
+    @Test
+    void findCardDtosByCardholderAndCardStatus_UsesIndex() {
+        assertIndexLookup(() -> cardRepository.findCardDtosByCardholderAndCardStatus(user, CardStatus.BLOCKED,
+                PageRequest.of(0, 10, BY_ID)), List.of("USER_ID", "CARD_STATUS"), user.getId(),
+                CardStatus.BLOCKED.name(), 11);
+    }
+
+    @Test
+    void findByCardholderWindow_UsesIndex() {
+        assertIndexLookup(() -> cardRepository.findByCardholder(user, ScrollPosition.keyset(), Limit.of(10), BY_ID),
+                List.of("USER_ID"), user.getId(), 11);
+    }
+
+    @Test
+    void findByCardStatusWindow_UsesIndex() {
+        assertIndexLookup(() -> cardRepository.findByCardStatus(CardStatus.BLOCKED, ScrollPosition.keyset(),
+                Limit.of(10), BY_ID), List.of("CARD_STATUS"), CardStatus.BLOCKED.name(), 11);
+    }
+
+    @Test
+    void findByCardholderAndCardStatusWindow_UsesIndex() {
+        assertIndexLookup(() -> cardRepository.findByCardholderAndCardStatus(user, CardStatus.BLOCKED,
+                ScrollPosition.keyset(), Limit.of(10), BY_ID), List.of("USER_ID", "CARD_STATUS"), user.getId(),
+                CardStatus.BLOCKED.name(), 11);
+    }
+
+    @Test
+    void findCardDtosExpiringBetween_UsesIndex() {
+        LocalDate from = LocalDate.of(2026, 12, 1);
+        LocalDate to = LocalDate.of(2026, 12, 31);
+        assertIndexLookup(() -> cardRepository.findCardDtosExpiringBetween(from, to,
+                PageRequest.of(0, 10, Sort.by("expiresOn", "id"))), List.of("EXPIRES_ON"), from, to, 11);
+    }
+
+    @Test
+    void findByCardNumber_UsesUniqueIndex() {
+        assertIndexLookup(() -> cardRepository.findByCardNumber("1111 1111 1111 0042"), List.of("CARD_NUMBER"),
+                1111111111110042L);
+    }
+
+    @Test
+    void compactLayout() {
+        Map<String, String> types = new HashMap<>();
+        jdbcTemplate.query("select column_name, data_type from information_schema.columns where table_name = 'CARDS'",
+                row -> {
+                    types.put(row.getString(1), row.getString(2));
+                });
+
+        assertEquals("BIGINT", types.get("CARD_NUMBER"));
+        assertEquals("SMALLINT", types.get("CARD_STATUS"));
+        assertEquals("DATE", types.get("EXPIRES_ON"));
+        assertFalse(types.containsKey("CARD_VALIDITY_PERIOD"), types::toString);
+    }
+
+    @Test
+    void balanceIsNotIndexed() {
+        // Индекс по balance обновлялся бы при каждом переводе и исключал HOT-обновления строк
+        List<String> columns = jdbcTemplate.queryForList(
+                "select column_name from information_schema.index_columns where table_name = 'CARDS'", String.class);
+
+        assertFalse(columns.isEmpty());
+        assertFalse(columns.contains("BALANCE"), columns::toString);
+    }
+
+    @Test
+    void fullScanIsDetected() {
+        // Выражение над колонкой не дает использовать индекс: H2 читает всю таблицу
+        String access = cardsAccess(explain("select * from cards c1_0 where c1_0.balance + 0 = ?", 5L));
+
+        assertFalse(access.contains(":"), access);
+    }
+
+    private void assertIndexLookup(Supplier<?> query, List<String> columns, Object... parameters) {
+        STATEMENTS.clear();
+        query.get();
+        assertFalse(STATEMENTS.isEmpty(), "Запрос не был выполнен");
+
+        String plan = explain(STATEMENTS.get(STATEMENTS.size() - 1), parameters);
+        String access = cardsAccess(plan);
+        // Поиск по индексу H2 печатает как "/* ИНДЕКС: условие */", полный проход по таблице или по первичному
+        // ключу ради сортировки идет без условия
+        assertTrue(access.contains(":"), () -> "Полный проход по cards:\n" + plan);
+        for (String column : columns) {
+            assertTrue(access.contains(column), () -> "Индекс не покрывает " + column + ":\n" + plan);
+        }
+    }
+
+    private String explain(String sql, Object... parameters) {
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, parameters));
+    }
+
+    private static String cardsAccess(String plan) {
+        Matcher matcher = CARDS_ACCESS.matcher(plan);
+        assertTrue(matcher.find(), plan);
+        return matcher.group(1);
+    }
+
+    public static class CapturingInspector implements StatementInspector {
+        @Override
+        public String inspect(String sql) {
+            if (sql.contains(" cards ")) {
+                STATEMENTS.add(sql);
+            }
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.CardNumberConverter;
+import liquibase.Contexts;
+import liquibase.Liquibase;
+import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.LiquibaseException;
+import liquibase.integration.spring.SpringResourceAccessor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Прогоняет весь changelog Liquibase на H2 в режиме PostgreSQL поверх исходной схемы users/cards с данными,
+ * как при обновлении уже работающей базы. H2 не знает функций PostgreSQL {@code setval} и {@code make_date},
+ * поэтому тест объявляет их через {@code CREATE ALIAS}.
+ */
+public class ChangelogMigrationTest {
+    private static final String CHANGELOG = "classpath:/db/changelog/db.changelog-master.yaml";
+
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        connection = DriverManager.getConnection(
+                "jdbc:h2:mem:changelog-" + UUID.randomUUID() + ";MODE=PostgreSQL", "sa", "");
+        execute("CREATE ALIAS make_date FOR 'java.time.LocalDate.of(int, int, int)'");
+        execute("CREATE ALIAS setval FOR '" + ChangelogMigrationTest.class.getName() + ".setval'");
+
+        // Исходная схема: первые два changeset'а в том виде, в котором они создали таблицы
+        execute(resource("db/changelog/create-table-users.sql"));
+        execute(resource("db/changelog/create-table-cards.sql"));
+        execute("INSERT INTO users (username, password, role) VALUES ('Anton', 'bgyfygvbhjnug', 'USER')");
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void update_MigratesExistingCards() throws Exception {
+        insertCard("1111 2222 3333 4444", "12/26", "ACTIVE", 12.34);
+        insertCard("0000 0000 0000 0012", "02/28", "BLOCKED", 0.1);
+        insertCard("9999 8888 7777 6666", "01/25", "EXPIRED", 100);
+
+        update();
+
+        List<String> columns = query("SELECT column_name FROM information_schema.columns WHERE table_name = 'CARDS'");
+        assertFalse(columns.contains("CARD_VALIDITY_PERIOD"), columns::toString);
+        List<String> indexes = query("SELECT index_name FROM information_schema.indexes WHERE table_name = 'CARDS'");
+        assertFalse(indexes.contains("IX_CARDS_BALANCE_ID"), indexes::toString);
+        assertTrue(indexes.contains("IX_CARDS_EXPIRES_ON_ID"), indexes::toString);
+
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery(
+                     "SELECT card_number, card_status, balance, expires_on FROM cards ORDER BY id")) {
+            assertCard(rows, "1111 2222 3333 4444", 1, 1234, LocalDate.of(2026, 12, 31));
+            assertCard(rows, "0000 0000 0000 0012", 2, 10, LocalDate.of(2028, 2, 29));
+            assertCard(rows, "9999 8888 7777 6666", 3, 10_000, LocalDate.of(2025, 1, 31));
+            assertFalse(rows.next());
+        }
+
+        // Первый блок id, выданный Hibernate из cards_seq, начинается после уже существующих карт
+        assertEquals(List.of("53"), query("SELECT NEXT VALUE FOR cards_seq"));
+    }
+
+    @Test
+    void update_UnknownCardStatusFails() throws Exception {
+        insertCard("1111 2222 3333 4444", "12/26", "LOST", 1);
+
+        LiquibaseException e = assertThrows(LiquibaseException.class, this::update);
+
+        assertTrue(messages(e).contains("Неизвестный статус карты: LOST"), () -> messages(e));
+    }
+
+    /**
+     * {@code setval(sequence, value, false)} из PostgreSQL: следующее значение последовательности равно value.
+     */
+    public static long setval(Connection connection, String sequence, long value, boolean isCalled)
+            throws SQLException {
+        long next = isCalled ? value + 1 : value;
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + next);
+        }
+        return value;
+    }
+
+    private void update() throws LiquibaseException {
+        Database database = DatabaseFactory.getInstance()
+                .findCorrectDatabaseImplementation(new JdbcConnection(connection));
+        new Liquibase(CHANGELOG, new SpringResourceAccessor(new DefaultResourceLoader()), database)
+                .update(new Contexts());
+    }
+
+    private void insertCard(String cardNumber, String cardValidityPeriod, String cardStatus, double balance)
+            throws SQLException {
+        execute("INSERT INTO cards (card_number, user_id, card_validity_period, card_status, balance) "
+                + "SELECT '" + cardNumber + "', id, '" + cardValidityPeriod + "', '" + cardStatus + "', " + balance
+                + " FROM users");
+    }
+
+    private static void assertCard(ResultSet rows, String cardNumber, int cardStatus, long balance,
+                                   LocalDate expiresOn) throws SQLException {
+        assertTrue(rows.next());
+        assertEquals(CardNumberConverter.toLookupValue(cardNumber), rows.getLong("card_number"));
+        assertEquals(cardStatus, rows.getShort("card_status"));
+        assertEquals(balance, rows.getLong("balance"));
+        assertEquals(expiresOn, rows.getObject("expires_on", LocalDate.class));
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private List<String> query(String sql) throws SQLException {
+        List<String> values = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery(sql)) {
+            while (rows.next()) {
+                values.add(rows.getString(1));
+            }
+        }
+        return values;
+    }
+
+    private static String resource(String path) throws IOException {
+        try (InputStream inputStream = ChangelogMigrationTest.class.getClassLoader().getResourceAsStream(path)) {
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String messages(Throwable e) {
+        StringBuilder messages = new StringBuilder();
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            messages.append(cause.getMessage()).append('\n');
+        }
+        return messages.toString();
+    }
+}
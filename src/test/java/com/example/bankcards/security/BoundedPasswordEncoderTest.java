@@ -0,0 +1,80 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.config.PasswordHashingProperties;
+import com.example.bankcards.exception.ServiceBusyException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BoundedPasswordEncoderTest {
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PasswordHashingProperties properties = new PasswordHashingProperties();
+
+    private BoundedPasswordEncoder encoder;
+
+    @Test
+    void encodeAndMatches_Successful() {
+        encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), properties, meterRegistry);
+
+        String hash = encoder.encode("password");
+
+        assertTrue(encoder.matches("password", hash));
+        assertFalse(encoder.matches("drowssap", hash));
+        assertEquals(1, meterRegistry.get("bank.password.hashing").tag("operation", "encode").timer().count());
+        assertEquals(2, meterRegistry.get("bank.password.hashing").tag("operation", "matches").timer().count());
+    }
+
+    @Test
+    void encode_NoPermitWithinTimeout() throws Exception {
+        properties.setMaxConcurrent(1);
+        properties.setAcquireTimeout(Duration.ofMillis(10));
+        properties.setRetryAfter(Duration.ofSeconds(3));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        encoder = new BoundedPasswordEncoder(blockingEncoder(started, release), properties, meterRegistry);
+
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("first"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertEquals(1, meterRegistry.get("bank.password.hashing.active").gauge().value());
+
+        ServiceBusyException e = assertThrows(ServiceBusyException.class, () -> encoder.encode("second"));
+        assertEquals(Duration.ofSeconds(3), e.getRetryAfter());
+
+        release.countDown();
+        assertEquals("first", running.get(5, TimeUnit.SECONDS));
+        assertEquals("third", encoder.encode("third"));
+        assertEquals(0, meterRegistry.get("bank.password.hashing.active").gauge().value());
+    }
+
+    private PasswordEncoder blockingEncoder(CountDownLatch started, CountDownLatch release) {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return rawPassword.toString();
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return rawPassword.toString().equals(encodedPassword);
+            }
+        };
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.config.JwtProperties;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.TokenRevocation;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.TokenRevocationRepository;
+import com.example.bankcards.service.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class JwtRequestFilterTest {
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private FilterChain chain;
+
+    @Mock
+    private TokenRevocationRepository tokenRevocationRepository;
+
+    private final JwtService jwtService = new JwtService();
+    private final JwtProperties jwtProperties = new JwtProperties();
+    private TokenRevocationService tokenRevocationService;
+
+    private JwtRequestFilter filter;
+
+    User user = new User(1L, "Anton", "bgyfygvbhjnug", Role.USER);
+
+    @BeforeEach
+    void setUp() {
+        tokenRevocationService = new TokenRevocationService(tokenRevocationRepository, jwtProperties,
+                new SimpleMeterRegistry());
+        filter = new JwtRequestFilter(jwtService, userService, jwtProperties, tokenRevocationService,
+                new VerifiedTokenCache(jwtProperties, new SimpleMeterRegistry()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void doFilter_LoadsUserFromDatabase() throws Exception {
+        UserDetailsService userDetailsService = username -> user;
+        when(userService.userDetailsService())
+                .thenReturn(userDetailsService);
+
+        filter.doFilter(requestWithToken(), new MockHttpServletResponse(), chain);
+
+        assertEquals(user, SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+        verify(userService).userDetailsService();
+    }
+
+    @Test
+    void doFilter_StatelessPrincipal() throws Exception {
+        jwtProperties.setStatelessPrincipal(true);
+
+        filter.doFilter(requestWithToken(), new MockHttpServletResponse(), chain);
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        User principal = (User) authentication.getPrincipal();
+        assertEquals(user.getId(), principal.getId());
+        assertEquals(user.getUsername(), principal.getUsername());
+        assertEquals(user.getAuthorities(), authentication.getAuthorities());
+        assertNull(principal.getPassword());
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    void doFilter_StatelessPrincipalRevoked() throws Exception {
+        jwtProperties.setStatelessPrincipal(true);
+        tokenRevocationService.revokeUser(user.getId());
+
+        filter.doFilter(requestWithToken(), new MockHttpServletResponse(), chain);
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    void doFilter_StatelessPrincipalRevokedOnAnotherNode() throws Exception {
+        jwtProperties.setStatelessPrincipal(true);
+        // Отзыв записан в базу другим узлом или до перезапуска, в кэше этого узла его нет
+        when(tokenRevocationRepository.findById(user.getId()))
+                .thenReturn(Optional.of(new TokenRevocation(user.getId(), Instant.now())));
+
+        filter.doFilter(requestWithToken(), new MockHttpServletResponse(), chain);
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    void doFilter_StatelessPrincipalIssuedAfterRevocation() throws Exception {
+        jwtProperties.setStatelessPrincipal(true);
+        when(tokenRevocationRepository.findById(user.getId()))
+                .thenReturn(Optional.of(new TokenRevocation(user.getId(), Instant.now().minusSeconds(60))));
+
+        filter.doFilter(requestWithToken(), new MockHttpServletResponse(), chain);
+
+        assertEquals(user.getId(), ((User) SecurityContextHolder.getContext().getAuthentication().getPrincipal())
+                .getId());
+    }
+
+    private MockHttpServletRequest requestWithToken() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(JwtRequestFilter.AUTH, JwtRequestFilter.BEARER + jwtService.generateToken(user));
+        return request;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JwtServiceTest {
+    private final JwtService jwtService = new JwtService();
+
+    User user = new User(1L, "Anton", "bgyfygvbhjnug", Role.USER);
+    User anotherUser = new User(2L, "Boris", "bgyfygvbhjnug", Role.USER);
+
+    @Test
+    void parseToken_Successful() {
+        String token = jwtService.generateToken(user);
+
+        JwtClaims claims = jwtService.parseToken(token);
+
+        assertEquals(user.getUsername(), claims.getUsername());
+        assertEquals(user.getId(), claims.getUserId());
+        assertEquals(Role.USER.name(), claims.getRole());
+        assertTrue(claims.getExpiresAt().isAfter(claims.getIssuedAt()));
+        assertEquals(user.getUsername(), jwtService.extractUsername(token));
+    }
+
+    @Test
+    void parseToken_TamperedToken() {
+        String token = jwtService.generateToken(user);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThrows(JwtException.class, () -> jwtService.parseToken(tampered));
+    }
+
+    @Test
+    void isTokenValid_Successful() {
+        JwtClaims claims = jwtService.parseToken(jwtService.generateToken(user));
+
+        assertTrue(jwtService.isTokenValid(claims, user));
+        assertFalse(jwtService.isTokenValid(claims, anotherUser));
+    }
+
+    @Test
+    void isTokenValid_Expired() {
+        Instant now = Instant.now();
+        JwtClaims claims = new JwtClaims(user.getUsername(), user.getId(), Role.USER.name(),
+                now.minusSeconds(120), now.minusSeconds(60));
+
+        assertFalse(jwtService.isTokenValid(claims, user));
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.config.JwtProperties;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class VerifiedTokenCacheTest {
+    private final JwtService jwtService = new JwtService();
+    private final JwtProperties properties = new JwtProperties();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger parsed = new AtomicInteger();
+    private final Function<String, JwtClaims> parser = token -> {
+        parsed.incrementAndGet();
+        return jwtService.parseToken(token);
+    };
+
+    User user = new User(1L, "Anton", "bgyfygvbhjnug", Role.USER);
+
+    @Test
+    void get_VerifiesTokenOnce() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(properties, meterRegistry);
+        String token = jwtService.generateToken(user);
+
+        JwtClaims first = cache.get(token, parser);
+        JwtClaims second = cache.get(token, parser);
+
+        assertSame(first, second);
+        assertEquals(1, parsed.get());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "jwt_tokens").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void get_InvalidTokenNotCached() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(properties, meterRegistry);
+
+        assertThrows(JwtException.class, () -> cache.get("not.a.token", parser));
+        assertThrows(JwtException.class, () -> cache.get("not.a.token", parser));
+
+        assertEquals(2, parsed.get());
+    }
+
+    @Test
+    void get_ExpiredClaimsNotKept() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(properties, meterRegistry);
+        Function<String, JwtClaims> expired = token -> {
+            parsed.incrementAndGet();
+            return new JwtClaims(user.getUsername(), user.getId(), Role.USER.name(), Instant.now().minusSeconds(60),
+                    Instant.now().minusSeconds(1));
+        };
+
+        cache.get("token", expired);
+        cache.get("token", expired);
+
+        assertEquals(2, parsed.get());
+    }
+
+    @Test
+    void get_Disabled() {
+        properties.setTokenCacheEnabled(false);
+        VerifiedTokenCache cache = new VerifiedTokenCache(properties, meterRegistry);
+        String token = jwtService.generateToken(user);
+
+        cache.get(token, parser);
+        cache.get(token, parser);
+
+        assertEquals(2, parsed.get());
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Основа тестов сервисов карт на H2. Наследники не переопределяют свойства и не подменяют бины, поэтому все
+ * они работают в одном контексте Spring; размер порций, если он важен тесту, задается собственным экземпляром
+ * сервиса. После каждого теста карты и пользователи удаляются.
+ * <p>
+ * Контекст работает с отдельной базой H2: другие контексты профиля h2 при старте пересоздают схему
+ * {@code bank_rest} вместе с {@code cards_seq}, и id, выданные из уже взятого блока pooled-оптимизатора,
+ * перестали бы расти в порядке вставки.
+ */
+@ActiveProfiles({"test", "h2"})
+@SpringBootTest(properties = "spring.datasource.url="
+        + "jdbc:h2:mem:card_services;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=5000")
+public abstract class CardDatabaseTest {
+    @Autowired
+    protected CardRepository cardRepository;
+
+    @Autowired
+    protected UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    void deleteCardsAndUsers() {
+        cardRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    protected User user(String username) {
+        return userRepository.save(new User(null, username, "bgyfygvbhjnug", Role.USER));
+    }
+
+    protected Card card(String cardNumber, User cardholder, String cardValidityPeriod, CardStatus cardStatus,
+                        long balance) {
+        return cardRepository.save(new Card(null, cardNumber, cardholder, cardValidityPeriod, cardStatus, balance));
+    }
+
+    protected CardStatus cardStatus(String cardNumber) {
+        return cardRepository.findByCardNumber(cardNumber).orElseThrow().getCardStatus();
+    }
+
+    /**
+     * Статистика Hibernate, обнуленная перед замером.
+     */
+    protected Statistics statistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+}
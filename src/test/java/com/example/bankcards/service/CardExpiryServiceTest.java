@@ -0,0 +1,100 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.config.CardExpiryProperties;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CardExpiryServiceTest extends CardDatabaseTest {
+    private static final DateTimeFormatter VALIDITY_PERIOD = DateTimeFormatter.ofPattern("MM/yy");
+    private static final String LAST_MONTH = YearMonth.now().minusMonths(1).format(VALIDITY_PERIOD);
+    private static final String THIS_MONTH = YearMonth.now().format(VALIDITY_PERIOD);
+    private static final String NEXT_YEAR = YearMonth.now().plusYears(1).format(VALIDITY_PERIOD);
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private CardExpiryService cardExpiryService;
+
+    @BeforeEach
+    void setUp() {
+        User anton = user("Anton");
+        cardRepository.saveAll(List.of(
+                new Card(null, "1111 1111 1111 0001", anton, LAST_MONTH, CardStatus.ACTIVE, 0),
+                new Card(null, "1111 1111 1111 0002", anton, LAST_MONTH, CardStatus.BLOCKED, 0),
+                new Card(null, "1111 1111 1111 0003", anton, LAST_MONTH, CardStatus.ACTIVE, 0),
+                new Card(null, "1111 1111 1111 0004", anton, LAST_MONTH, CardStatus.ACTIVE, 0),
+                new Card(null, "1111 1111 1111 0005", anton, LAST_MONTH, CardStatus.EXPIRED, 0),
+                new Card(null, "1111 1111 1111 0006", anton, THIS_MONTH, CardStatus.ACTIVE, 0),
+                new Card(null, "1111 1111 1111 0007", anton, THIS_MONTH, CardStatus.BLOCKED, 0),
+                new Card(null, "1111 1111 1111 0008", anton, NEXT_YEAR, CardStatus.ACTIVE, 0)));
+
+        // Порция из двух карт, чтобы проход по истекшим картам занял несколько транзакций
+        CardExpiryProperties properties = new CardExpiryProperties();
+        properties.setBatchSize(2);
+        cardExpiryService = new CardExpiryService(cardRepository, properties);
+    }
+
+    @Test
+    void expiresOn_LastDayOfMonth() {
+        assertEquals(LocalDate.of(2026, 2, 28), Card.expiresOn("02/26"));
+        assertEquals(LocalDate.of(2028, 2, 29), Card.expiresOn("02/28"));
+        assertEquals(YearMonth.now().atEndOfMonth(),
+                cardRepository.findByCardNumber("1111 1111 1111 0006").orElseThrow().getExpiresOn());
+    }
+
+    @Test
+    void expireCards_InBatches() {
+        assertEquals(4, cardExpiryService.expireCards(LocalDate.now()));
+
+        for (int i = 1; i <= 5; i++) {
+            assertEquals(CardStatus.EXPIRED, cardStatus("1111 1111 1111 000" + i));
+        }
+        assertEquals(CardStatus.ACTIVE, cardStatus("1111 1111 1111 0006"));
+        assertEquals(CardStatus.BLOCKED, cardStatus("1111 1111 1111 0007"));
+        assertEquals(0, cardExpiryService.expireCards(LocalDate.now()));
+    }
+
+    @Test
+    void expireCards_SkipsLockedCards() throws Exception {
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(s -> {
+            cardRepository.findByCardNumberInOrderByIdAsc(List.of("1111 1111 1111 0001"));
+            locked.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertTrue(locked.await(10, TimeUnit.SECONDS));
+
+        // Блокировка держится дольше LOCK_TIMEOUT: без SKIP LOCKED проход ждал бы ее и упал
+        long started = System.nanoTime();
+        assertEquals(3, cardExpiryService.expireCards(LocalDate.now()));
+        assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started) < 5);
+        assertEquals(CardStatus.ACTIVE, cardStatus("1111 1111 1111 0001"));
+
+        release.countDown();
+        holder.get(10, TimeUnit.SECONDS);
+        assertEquals(1, cardExpiryService.expireCards(LocalDate.now()));
+    }
+}
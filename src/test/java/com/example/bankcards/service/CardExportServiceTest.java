@@ -0,0 +1,65 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CardExportServiceTest extends CardDatabaseTest {
+    // Больше одной порции, чтобы выгрузка прошла через сброс буфера и очистку контекста
+    private static final int CARDS = CardRepository.EXPORT_FETCH_SIZE + 5;
+
+    @Autowired
+    private CardExportService cardExportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        User anton = user("Anton");
+        User ivan = user("Ivan, Jr.");
+        cardRepository.saveAll(IntStream.range(0, CARDS)
+                .mapToObj(i -> new Card(null, String.format("1111 1111 %04d %04d", i / 10_000, i % 10_000),
+                        i % 2 == 0 ? anton : ivan, "12/26", CardStatus.ACTIVE, i))
+                .toList());
+    }
+
+    @Test
+    void export_Ndjson() throws Exception {
+        List<String> lines = export(CardExportService.Format.NDJSON).lines().toList();
+
+        assertEquals(CARDS, lines.size());
+        JsonNode last = objectMapper.readTree(lines.get(CARDS - 1));
+        assertEquals("1111 1111 0000 1004", last.get("cardNumber").asText());
+        assertEquals("10.04", last.get("balance").asText());
+    }
+
+    @Test
+    void export_Csv() {
+        List<String> lines = export(CardExportService.Format.CSV).lines().toList();
+
+        assertEquals(CARDS + 1, lines.size());
+        assertEquals("cardNumber,cardholder,cardValidityPeriod,cardStatus,balance", lines.get(0));
+        assertEquals("1111 1111 0000 0000,Anton,12/26,ACTIVE,0.00", lines.get(1));
+        assertEquals("1111 1111 0000 0001,\"Ivan, Jr.\",12/26,ACTIVE,0.01", lines.get(2));
+    }
+
+    private String export(CardExportService.Format format) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        cardExportService.export(format, outputStream);
+        return outputStream.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.config.CardImportProperties;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CardImportServiceTest extends CardDatabaseTest {
+    @Autowired
+    private CardIssuanceService cardIssuanceService;
+
+    private CardImportService cardImportService;
+
+    @BeforeEach
+    void setUp() {
+        User anton = user("Anton");
+        user("Ivan, Jr.");
+        card("9999 9999 9999 9999", anton, "12/26", CardStatus.ACTIVE, 0);
+
+        // Маленькая порция, чтобы файл прошел через несколько транзакций
+        CardImportProperties properties = new CardImportProperties();
+        properties.setChunkSize(3);
+        cardImportService = new CardImportService(cardIssuanceService, properties);
+    }
+
+    @Test
+    void importCards_ChunkedWithReport() {
+        String csv = """
+                \uFEFFcardNumber,cardholder,cardValidityPeriod
+                1111 1111 1111 0001,Anton,12/26
+                1111 1111 1111 0002,"Ivan, Jr.",01/27
+                9999 9999 9999 9999,Anton,12/26
+
+                1111 1111 1111 0003,Nobody,12/26
+                1111-1111-1111-0004,Anton,12/26
+                1111 1111 1111 0001,Anton,12/26
+                1111 1111 1111 0005,Anton
+                1111 1111 1111 0006,Anton,13/26
+                1111 1111 1111 0007,Anton,03/28
+                """;
+
+        List<String> report = importCards(csv).lines().toList();
+
+        assertEquals("line,cardNumber,message", report.get(0));
+        assertEquals(List.of(
+                "4,9999 9999 9999 9999,Карта с этим номером уже существует",
+                "6,1111 1111 1111 0003,Пользователь не найден",
+                "7,1111-1111-1111-0004,Указан некорректный номер карты",
+                "8,1111 1111 1111 0001,Карта с этим номером уже существует",
+                "9,,Некорректная строка CSV",
+                "10,1111 1111 1111 0006,Указан некорректный срок действия карты"),
+                report.stream().filter(line -> !line.startsWith("#")).skip(1).toList());
+        assertEquals(List.of(
+                "# Обработано строк: 4, выпущено карт: 2, отклонено: 1",
+                "# Обработано строк: 8, выпущено карт: 2, отклонено: 4",
+                "# Обработано строк: 11, выпущено карт: 3, отклонено: 6",
+                "# Импорт завершен. Обработано строк: 11, выпущено карт: 3, отклонено: 6"),
+                report.stream().filter(line -> line.startsWith("#")).toList());
+
+        assertEquals(4, cardRepository.count());
+        assertTrue(cardRepository.findByCardNumber("1111 1111 1111 0002").isPresent());
+    }
+
+    private String importCards(String csv) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        cardImportService.importCards(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), outputStream);
+        return outputStream.toString(StandardCharsets.UTF_8);
+    }
+}
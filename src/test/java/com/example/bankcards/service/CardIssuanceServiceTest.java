@@ -0,0 +1,67 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CardIssueResultDto;
+import com.example.bankcards.dto.NewCardDto;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.User;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CardIssuanceServiceTest extends CardDatabaseTest {
+    private static final int CARDS = 120;
+    private static final String EXISTING = "9999 9999 9999 9999";
+
+    @Autowired
+    private CardIssuanceService cardIssuanceService;
+
+    @BeforeEach
+    void setUp() {
+        User anton = user("Anton");
+        user("Ivan");
+        card(EXISTING, anton, "12/26", CardStatus.ACTIVE, 0);
+    }
+
+    @Test
+    void createCards_BatchedInsertsAndPerRowFailures() {
+        List<NewCardDto> cards = new ArrayList<>();
+        for (int i = 0; i < CARDS; i++) {
+            cards.add(new NewCardDto(String.format("1111 1111 1111 %04d", i), i % 2 == 0 ? "Anton" : "Ivan",
+                    "12/26"));
+        }
+        cards.add(new NewCardDto(EXISTING, "Anton", "12/26"));
+        cards.add(new NewCardDto("1111 1111 1111 0000", "Ivan", "12/26"));
+        cards.add(new NewCardDto("1111 1111 1111 9001", "Nobody", "12/26"));
+        cards.add(new NewCardDto("1111-1111-1111-9002", "Anton", "12/26"));
+        cards.add(new NewCardDto("1111 1111 1111 9003", "Anton", "13/26"));
+        cards.add(new NewCardDto(null, "Anton", "12/26"));
+        Statistics statistics = statistics();
+
+        List<CardIssueResultDto> results = cardIssuanceService.createCards(cards);
+
+        assertEquals(CARDS + 6, results.size());
+        assertTrue(results.get(0).isCreated());
+        assertTrue(results.get(CARDS - 1).isCreated());
+        assertEquals("Карта с этим номером уже существует", results.get(CARDS).getMessage());
+        assertEquals("Карта с этим номером уже существует", results.get(CARDS + 1).getMessage());
+        assertEquals("Пользователь не найден", results.get(CARDS + 2).getMessage());
+        assertEquals("Указан некорректный номер карты", results.get(CARDS + 3).getMessage());
+        assertEquals("Указан некорректный срок действия карты", results.get(CARDS + 4).getMessage());
+        assertFalse(results.get(CARDS + 5).isCreated());
+
+        assertEquals(CARDS + 1, cardRepository.count());
+        assertEquals(CARDS, statistics.getEntityInsertCount());
+        // Владельцы, занятые номера, несколько значений последовательности и по одной пачке на 50 карт
+        // вместо трех запросов на каждую карту
+        assertTrue(statistics.getPrepareStatementCount() <= 10,
+                () -> "Запросов к БД: " + statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,251 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.CardStatusUpdateDto;
+import com.example.bankcards.dto.CardWindow;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.NotFoundException;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CardServiceDatabaseTest extends CardDatabaseTest {
+    private static final int CARDHOLDERS = 8;
+    // Больше одной порции, чтобы смена статуса по фильтру прошла несколькими транзакциями
+    private static final int ANTON_CARDS = CardService.STATUS_UPDATE_CHUNK_SIZE + 3;
+
+    @Autowired
+    private CardService cardService;
+
+    @Test
+    void getCards_WalksAllWindowsByCursor() {
+        List<Card> cards = keysetCards();
+        List<String> expected = cards.stream()
+                .sorted(Comparator.comparing(Card::getCardStatus)
+                        .thenComparing(Card::getId)
+                        .reversed())
+                .map(Card::getCardNumber)
+                .toList();
+
+        List<String> actual = new ArrayList<>();
+        String after = "";
+        int windows = 0;
+        while (after != null) {
+            CardWindow window = cardService.getCards("", "", 3, "cardStatus", "desc", after);
+            window.getCards().forEach(card -> actual.add(card.getCardNumber()));
+            after = window.getNextCursor();
+            windows++;
+        }
+
+        assertEquals(expected, actual);
+        assertEquals(3, windows);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"asc", "desc"})
+    void getCards_WalksWindowsByValidityPeriod(String sortMode) {
+        User anton = user("Anton");
+        List<Card> cards = new ArrayList<>();
+        String[] validityPeriods = {"03/27", "12/26", "01/28", "12/26", "03/27", "06/26", "12/26"};
+        for (int i = 0; i < validityPeriods.length; i++) {
+            cards.add(card("1111 1111 1111 111" + i, anton, validityPeriods[i], CardStatus.ACTIVE, 0));
+        }
+        // Одинаковые сроки действия упорядочиваются по id в том же направлении
+        Comparator<Card> order = Comparator.comparing(Card::getExpiresOn).thenComparing(Card::getId);
+        List<String> expected = cards.stream()
+                .sorted(sortMode.equals("asc") ? order : order.reversed())
+                .map(Card::getCardNumber)
+                .toList();
+
+        List<String> actual = new ArrayList<>();
+        String after = "";
+        while (after != null) {
+            CardWindow window = cardService.getCards("", "", 2, "cardValidityPeriod", sortMode, after);
+            window.getCards().forEach(card -> actual.add(card.getCardNumber()));
+            after = window.getNextCursor();
+        }
+
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void getCards_ByCardStatusWithCursor() {
+        List<Card> cards = keysetCards();
+        String after = cardService.getCards("", "ACTIVE", 2, "id", "asc", "").getNextCursor();
+
+        CardWindow window = cardService.getCards("", "ACTIVE", 2, "id", "asc", after);
+
+        assertNull(window.getNextCursor());
+        assertEquals(List.of(cards.get(4).getCardNumber(), cards.get(6).getCardNumber()),
+                window.getCards().stream().map(CardDto::getCardNumber).toList());
+    }
+
+    @Test
+    void getCards_CursorFromAnotherSort() {
+        keysetCards();
+        String after = cardService.getCards("", "", 2, "id", "asc", "").getNextCursor();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> cardService.getCards("", "", 2, "cardStatus", "asc", after));
+    }
+
+    /**
+     * Число SQL-запросов на страницу карт не должно зависеть от числа владельцев на ней.
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"", "ACTIVE"})
+    void getCards_OneStatementPerPage(String cardStatus) {
+        cardholderCards();
+        Statistics statistics = statistics();
+
+        List<CardDto> cards = cardService.getCards("", cardStatus, 0, CARDHOLDERS, "id", "asc").getContent();
+
+        assertEquals(CARDHOLDERS, cards.size());
+        assertEquals("user" + (CARDHOLDERS - 1), cards.get(CARDHOLDERS - 1).getCardholder());
+        // Поиск владельца по пустому username и сама страница карт
+        assertEquals(2, statistics.getPrepareStatementCount());
+        // Страница читается проекцией в CardDto, сущности Card и User не создаются
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "ACTIVE"})
+    void getCards_KeysetOneStatementPerWindow(String cardStatus) {
+        cardholderCards();
+        Statistics statistics = statistics();
+
+        CardWindow window = cardService.getCards("", cardStatus, CARDHOLDERS, "id", "asc", "");
+
+        assertEquals(CARDHOLDERS, window.getCards().size());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void blockCards_ByUsernameInChunks() {
+        statusCards();
+
+        CardStatusUpdateDto result = cardService.blockCards("Anton", "", "");
+
+        assertEquals(CardStatus.BLOCKED, result.getCardStatus());
+        assertEquals(ANTON_CARDS, result.getUpdated());
+        assertEquals(2, result.getChunks());
+        assertEquals(CardStatus.EXPIRED, cardStatus("1111 2222 0000 0001"));
+        assertEquals(CardStatus.ACTIVE, cardStatus("2222 1111 0000 0001"));
+        assertEquals(ANTON_CARDS + 2, cardRepository.findAll().stream()
+                .filter(card -> card.getCardStatus() == CardStatus.BLOCKED)
+                .count());
+    }
+
+    @Test
+    void blockCards_ByNumberPrefix() {
+        statusCards();
+
+        CardStatusUpdateDto result = cardService.blockCards("", "2222", "");
+
+        assertEquals(1, result.getUpdated());
+        assertEquals(1, result.getChunks());
+        assertEquals(CardStatus.BLOCKED, cardStatus("2222 1111 0000 0001"));
+        assertEquals(CardStatus.ACTIVE, cardStatus("1111 1111 1111 0000"));
+    }
+
+    @Test
+    void activateCards_ByUsernameAndValidityPeriod() {
+        statusCards();
+
+        CardStatusUpdateDto result = cardService.activateCards("Ivan", "2222 1111", "01/27");
+
+        assertEquals(CardStatus.ACTIVE, result.getCardStatus());
+        assertEquals(1, result.getUpdated());
+        assertEquals(CardStatus.ACTIVE, cardStatus("2222 1111 0000 0002"));
+        assertEquals(CardStatus.BLOCKED, cardStatus("3333 1111 0000 0001"));
+    }
+
+    @Test
+    void blockCards_NothingMatches() {
+        statusCards();
+
+        CardStatusUpdateDto result = cardService.blockCards("", "4444", "");
+
+        assertEquals(0, result.getUpdated());
+        assertEquals(0, result.getChunks());
+    }
+
+    @Test
+    void blockCards_UserNotFound() {
+        statusCards();
+
+        assertThrows(NotFoundException.class, () -> cardService.blockCards("Nobody", "", ""));
+    }
+
+    @Test
+    void getExpiringCards_ActiveAndBlockedUntilDate() {
+        DateTimeFormatter validityPeriod = DateTimeFormatter.ofPattern("MM/yy");
+        User anton = user("Anton");
+        card("1111 1111 1111 0001", anton, YearMonth.now().minusMonths(1).format(validityPeriod),
+                CardStatus.ACTIVE, 0);
+        card("1111 1111 1111 0006", anton, YearMonth.now().format(validityPeriod), CardStatus.ACTIVE, 0);
+        card("1111 1111 1111 0007", anton, YearMonth.now().format(validityPeriod), CardStatus.BLOCKED, 0);
+        card("1111 1111 1111 0008", anton, YearMonth.now().plusYears(1).format(validityPeriod),
+                CardStatus.ACTIVE, 0);
+        int daysToMonthEnd = (int) ChronoUnit.DAYS.between(LocalDate.now(), YearMonth.now().atEndOfMonth());
+
+        Slice<CardDto> first = cardService.getExpiringCards(daysToMonthEnd, 0, 1);
+        Slice<CardDto> all = cardService.getExpiringCards(daysToMonthEnd, 0, 10);
+
+        assertTrue(first.hasNext());
+        assertEquals("1111 1111 1111 0006", first.getContent().get(0).getCardNumber());
+        assertFalse(all.hasNext());
+        assertEquals(List.of("1111 1111 1111 0006", "1111 1111 1111 0007"),
+                all.getContent().stream().map(CardDto::getCardNumber).toList());
+    }
+
+    private List<Card> keysetCards() {
+        User anton = user("Anton");
+        List<Card> cards = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            cards.add(card("1111 1111 1111 111" + i, anton, "12/26",
+                    i % 2 == 0 ? CardStatus.ACTIVE : CardStatus.BLOCKED, 0));
+        }
+        return cards;
+    }
+
+    private void cardholderCards() {
+        for (int i = 0; i < CARDHOLDERS; i++) {
+            card("1111 1111 1111 111" + i, user("user" + i), "12/26", CardStatus.ACTIVE, i);
+        }
+    }
+
+    private void statusCards() {
+        User anton = user("Anton");
+        User ivan = user("Ivan");
+
+        List<Card> cards = new ArrayList<>();
+        for (int i = 0; i < ANTON_CARDS; i++) {
+            cards.add(new Card(null, String.format("1111 1111 1111 %04d", i), anton, "12/26", CardStatus.ACTIVE, 0));
+        }
+        cards.add(new Card(null, "1111 2222 0000 0001", anton, "12/26", CardStatus.EXPIRED, 0));
+        cards.add(new Card(null, "2222 1111 0000 0001", ivan, "12/26", CardStatus.ACTIVE, 0));
+        cards.add(new Card(null, "2222 1111 0000 0002", ivan, "01/27", CardStatus.BLOCKED, 0));
+        cards.add(new Card(null, "3333 1111 0000 0001", ivan, "01/27", CardStatus.BLOCKED, 0));
+        cardRepository.saveAll(cards);
+    }
+}
@@ -1,9 +1,15 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.config.TransferProperties;
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.CardWindow;
 import com.example.bankcards.dto.NewCardDto;
+import com.example.bankcards.dto.TransferRequest;
+import com.example.bankcards.dto.TransferResultDto;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.IdempotencyKey;
+import com.example.bankcards.entity.IdempotencyKeyId;
 import com.example.bankcards.entity.Role;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.AccessException;
@@ -11,19 +17,35 @@ import com.example.bankcards.exception.CardException;
 import com.example.bankcards.exception.NotFoundException;
 import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.util.CardCursor;
+import com.example.bankcards.util.CardFormat;
+import com.example.bankcards.util.Money;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.*;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -37,6 +59,18 @@ public class CardServiceTest {
     @Mock
     private UserService userService;
 
+    @Mock
+    private TransferExecutor transferExecutor;
+
+    @Mock
+    private IdempotencyService idempotencyService;
+
+    @Mock
+    private TotalCountCache totalCountCache;
+
+    @Spy
+    private TransferProperties transferProperties = new TransferProperties();
+
     @InjectMocks
     private CardService cardService;
 
@@ -44,7 +78,7 @@ public class CardServiceTest {
     NewCardDto newCardDto = new NewCardDto("1111 1111 1111 1111", user.getUsername(),
             "12/26");
     CardDto cardDto = new CardDto("1111 1111 1111 1111", user.getUsername(),"12/26",
-            CardStatus.ACTIVE, 100);
+            CardStatus.ACTIVE, Money.toDecimal(100));
     Card cardFirst = new Card(1L, "1111 1111 1111 1111", user, "12/26",
             CardStatus.ACTIVE, 100);
     Card cardSecond = new Card(2L, "1111 1111 1111 1112", user, "12/26",
@@ -216,113 +250,224 @@ public class CardServiceTest {
         verify(cardRepository, never()).save(any());
     }
 
+    @Test
+    void blockCards_WithoutCriteria() {
+        assertThrows(IllegalArgumentException.class, () -> cardService.blockCards("", "", ""));
+
+        verifyNoInteractions(cardRepository);
+    }
+
+    @Test
+    void blockCards_WildcardPrefix() {
+        assertThrows(IllegalArgumentException.class, () -> cardService.blockCards("", "%", ""));
+
+        verifyNoInteractions(cardRepository);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"2222-1111", "22221111", "2222  1111", " 2222", "2222 ", "2222 111 1",
+            "2222 1111 1111 1111 1"})
+    void blockCards_MalformedPrefix(String numberPrefix) {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> cardService.blockCards("", numberPrefix, ""));
+
+        assertEquals(CardFormat.INVALID_NUMBER_PREFIX, e.getMessage());
+        verifyNoInteractions(cardRepository);
+    }
+
+    @Test
+    void getExpiringCards_NegativeDays() {
+        assertThrows(IllegalArgumentException.class, () -> cardService.getExpiringCards(-1, 0, 10));
+
+        verifyNoInteractions(cardRepository);
+    }
+
     @Test
     void getCards_ByUsernameAndCardStatus() {
-        List<Card> cards = List.of(cardFirst, cardSecond);
+        List<CardDto> cards = List.of(cardDto, cardDto);
 
         when(userRepository.findByUsername(user.getUsername()))
                 .thenReturn(Optional.of(user));
-        when(cardRepository.findByCardholderAndCardStatus(PageRequest.of(0, 10,
-                Sort.by(Sort.Direction.ASC, "id")), user, CardStatus.ACTIVE))
-                .thenReturn(cards);
+        when(cardRepository.findCardDtosByCardholderAndCardStatus(user, CardStatus.ACTIVE, PageRequest.of(0, 10,
+                Sort.by(Sort.Direction.ASC, "id"))))
+                .thenReturn(new SliceImpl<>(cards));
 
-        List<CardDto> cardDtos = cardService.getCards(user.getUsername(), "ACTIVE",
+        Slice<CardDto> cardDtos = cardService.getCards(user.getUsername(), "ACTIVE",
                 0, 10, "id", "asc");
 
-        assertEquals(cardDtos.size(), cards.size());
+        assertEquals(cardDtos.getNumberOfElements(), cards.size());
 
         verify(userRepository).findByUsername(user.getUsername());
-        verify(cardRepository).findByCardholderAndCardStatus(any(Pageable.class), any(User.class),
-                any(CardStatus.class));
+        verify(cardRepository).findCardDtosByCardholderAndCardStatus(any(User.class), any(CardStatus.class),
+                any(Pageable.class));
     }
 
     @Test
     void getCards_ByUsername() {
-        List<Card> cards = List.of(cardFirst, cardSecond);
+        List<CardDto> cards = List.of(cardDto, cardDto);
 
         when(userRepository.findByUsername(user.getUsername()))
                 .thenReturn(Optional.of(user));
-        when(cardRepository.findByCardholder(PageRequest.of(0, 10,
-                Sort.by(Sort.Direction.ASC, "id")), user))
-                .thenReturn(cards);
+        when(cardRepository.findCardDtosByCardholder(user, PageRequest.of(0, 10,
+                Sort.by(Sort.Direction.ASC, "id"))))
+                .thenReturn(new SliceImpl<>(cards));
 
-        List<CardDto> cardDtos = cardService.getCards(user.getUsername(), "",
+        Slice<CardDto> cardDtos = cardService.getCards(user.getUsername(), "",
                 0, 10, "id", "asc");
 
-        assertEquals(cardDtos.size(), cards.size());
+        assertEquals(cardDtos.getNumberOfElements(), cards.size());
 
         verify(userRepository).findByUsername(user.getUsername());
-        verify(cardRepository).findByCardholder(any(Pageable.class), any(User.class));
+        verify(cardRepository).findCardDtosByCardholder(any(User.class), any(Pageable.class));
     }
 
     @Test
     void getCards_ByCardStatus() {
-        List<Card> cards = List.of(cardFirst, cardSecond);
+        List<CardDto> cards = List.of(cardDto, cardDto);
 
         when(userRepository.findByUsername(""))
                 .thenReturn(Optional.empty());
-        when(cardRepository.findByCardStatus(PageRequest.of(0, 10,
-                Sort.by(Sort.Direction.ASC, "id")), CardStatus.ACTIVE))
-                .thenReturn(cards);
+        when(cardRepository.findCardDtosByCardStatus(CardStatus.ACTIVE, PageRequest.of(0, 10,
+                Sort.by(Sort.Direction.ASC, "id"))))
+                .thenReturn(new SliceImpl<>(cards));
 
-        List<CardDto> cardDtos = cardService.getCards("", "ACTIVE",
+        Slice<CardDto> cardDtos = cardService.getCards("", "ACTIVE",
                 0, 10, "id", "asc");
 
-        assertEquals(cardDtos.size(), cards.size());
+        assertEquals(cardDtos.getNumberOfElements(), cards.size());
 
         verify(userRepository).findByUsername("");
-        verify(cardRepository).findByCardStatus(any(Pageable.class), any(CardStatus.class));
+        verify(cardRepository).findCardDtosByCardStatus(any(CardStatus.class), any(Pageable.class));
+    }
+
+    @Test
+    void getCards_UnknownUsername() {
+        when(userRepository.findByUsername("Nobody"))
+                .thenReturn(Optional.empty());
+
+        Slice<CardDto> cardDtos = cardService.getCards("Nobody", "ACTIVE", 0, 10, "id", "asc");
+
+        assertTrue(cardDtos.isEmpty());
+        assertEquals(0, cardService.countCards("Nobody", "ACTIVE"));
+        verifyNoInteractions(cardRepository, totalCountCache);
     }
 
     @Test
     void getCards_Nothing() {
-        Page<Card> page = new PageImpl<>(List.of(cardFirst, cardSecond),
-                PageRequest.of(0, 10), 1);
+        Slice<CardDto> slice = new SliceImpl<>(List.of(cardDto, cardDto),
+                PageRequest.of(0, 2), true);
 
         when(userRepository.findByUsername(""))
                 .thenReturn(Optional.empty());
-        when(cardRepository.findAll(PageRequest.of(0, 10,
+        when(cardRepository.findCardDtos(PageRequest.of(0, 2,
                 Sort.by(Sort.Direction.ASC, "id"))))
-                .thenReturn(page);
+                .thenReturn(slice);
 
-        List<CardDto> cardDtos = cardService.getCards("", "",
-                0, 10, "id", "asc");
+        Slice<CardDto> cardDtos = cardService.getCards("", "",
+                0, 2, "id", "asc");
 
-        assertEquals(cardDtos.size(), 2);
+        assertEquals(cardDtos.getNumberOfElements(), 2);
+        assertTrue(cardDtos.hasNext());
 
         verify(userRepository).findByUsername("");
-        verify(cardRepository).findAll(any(Pageable.class));
+        verify(cardRepository).findCardDtos(any(Pageable.class));
+        verify(cardRepository, never()).count();
+    }
+
+    @Test
+    void countCards_ByCardStatus() {
+        when(userRepository.findByUsername(""))
+                .thenReturn(Optional.empty());
+        when(totalCountCache.get(eq("cards::ACTIVE"), any()))
+                .thenAnswer(invocation -> invocation.<LongSupplier>getArgument(1).getAsLong());
+        when(cardRepository.countByCardStatus(CardStatus.ACTIVE))
+                .thenReturn(7L);
+
+        assertEquals(7, cardService.countCards("", "ACTIVE"));
+
+        verify(cardRepository, never()).count();
     }
 
     @Test
     void getCardsUser_Successful() {
-        List<Card> cards = List.of(cardFirst, cardSecond);
+        List<CardDto> cards = List.of(cardDto, cardDto);
 
         when(userService.getCurrentUser())
                 .thenReturn(user);
-        when(cardRepository.findByCardholder(PageRequest.of(0, 10,
-                Sort.by(Sort.Direction.ASC, "id")), user))
-                .thenReturn(cards);
+        when(cardRepository.findCardDtosByCardholder(user, PageRequest.of(0, 10,
+                Sort.by(Sort.Direction.ASC, "id"))))
+                .thenReturn(new SliceImpl<>(cards));
 
         List<CardDto> cardDtos = cardService.getCardsUser(0, 10, "id", "asc");
 
         assertEquals(cardDtos.size(), cards.size());
 
         verify(userService).getCurrentUser();
-        verify(cardRepository).findByCardholder(any(Pageable.class), any(User.class));
+        verify(cardRepository).findCardDtosByCardholder(any(User.class), any(Pageable.class));
+    }
+
+    @Test
+    void getCardsUser_KeysetReturnsNextCursor() {
+        Window<Card> window = Window.from(List.of(cardFirst, cardSecond),
+                i -> ScrollPosition.forward(Map.of("cardStatus", CardStatus.ACTIVE, "id", i + 1L)), true);
+
+        when(userService.getCurrentUser())
+                .thenReturn(user);
+        when(cardRepository.findByCardholder(user, ScrollPosition.keyset(), Limit.of(2),
+                Sort.by(Sort.Direction.DESC, "cardStatus", "id")))
+                .thenReturn(window);
+
+        CardWindow cardWindow = cardService.getCardsUser(2, "cardStatus", "desc", "");
+
+        assertEquals(2, cardWindow.getCards().size());
+        assertEquals(CardCursor.decode(cardWindow.getNextCursor(), "cardStatus", "desc"),
+                ScrollPosition.forward(Map.of("cardStatus", CardStatus.ACTIVE, "id", 2L)));
+    }
+
+    @Test
+    void getCardsUser_KeysetLastWindow() {
+        ScrollPosition after = ScrollPosition.forward(Map.of("id", 1L));
+        when(userService.getCurrentUser())
+                .thenReturn(user);
+        when(cardRepository.findByCardholder(user, after, Limit.of(2), Sort.by(Sort.Direction.ASC, "id")))
+                .thenReturn(Window.from(List.of(cardSecond), ScrollPosition::offset));
+
+        CardWindow cardWindow = cardService.getCardsUser(2, "id", "asc",
+                CardCursor.encode(ScrollPosition.forward(Map.of("id", 1L)), "id", "asc"));
+
+        assertEquals(1, cardWindow.getCards().size());
+        assertEquals(null, cardWindow.getNextCursor());
+    }
+
+    @Test
+    void getCards_UnindexedSortField() {
+        assertThrows(IllegalArgumentException.class,
+                () -> cardService.getCards("", "", 0, 10, "version", "asc"));
+
+        verifyNoInteractions(cardRepository);
+    }
+
+    @Test
+    void getCards_KeysetUnknownSortField() {
+        assertThrows(IllegalArgumentException.class,
+                () -> cardService.getCards("", "", 10, "cardholder.password", "asc", ""));
+
+        verifyNoInteractions(cardRepository);
     }
 
     @Test
     void transfersBetweenCards_Successful() {
+        transferProperties.setMode(TransferProperties.Mode.PESSIMISTIC);
+
         Card cardFirstAfter = new Card(1L, "1111 1111 1111 1111", user, "12/26",
                 CardStatus.ACTIVE, 50);
         Card cardSecondAfter = new Card(2L, "1111 1111 1111 1112", user, "12/26",
                 CardStatus.ACTIVE, 150);
 
-        when(cardRepository.findByCardNumber(cardFirst.getCardNumber()))
-                .thenReturn(Optional.of(cardFirst));
-        when(cardRepository.findByCardNumber(cardSecond.getCardNumber()))
-                .thenReturn(Optional.of(cardSecond));
+        runTransfersInPlace();
+        when(cardRepository.findByCardNumberInOrderByIdAsc(List.of(cardFirst.getCardNumber(),
+                cardSecond.getCardNumber())))
+                .thenReturn(List.of(cardFirst, cardSecond));
         when(userService.getCurrentUser())
                 .thenReturn(user);
         when(cardRepository.save(cardFirst))
@@ -332,36 +477,65 @@ public class CardServiceTest {
 
         cardService.transfersBetweenCards(cardFirst.getCardNumber(), cardSecond.getCardNumber(), 50);
 
+        assertEquals(50, cardFirst.getBalance());
+        assertEquals(150, cardSecond.getBalance());
+
         verify(userService).getCurrentUser();
+        verify(transferExecutor).execute(any(Runnable.class));
+        verify(cardRepository, times(2)).save(any(Card.class));
+        verify(cardRepository).findByCardNumberInOrderByIdAsc(any());
+        verify(cardRepository, never()).findByCardNumber(any());
+    }
+
+    @Test
+    void transfersBetweenCards_OptimisticMode() {
+        transferProperties.setMode(TransferProperties.Mode.OPTIMISTIC);
+
+        runTransfersInPlace();
+        when(cardRepository.findByCardNumberIn(List.of(cardFirst.getCardNumber(), cardSecond.getCardNumber())))
+                .thenReturn(List.of(cardSecond, cardFirst));
+        when(userService.getCurrentUser())
+                .thenReturn(user);
+
+        cardService.transfersBetweenCards(cardFirst.getCardNumber(), cardSecond.getCardNumber(), 50);
+
+        assertEquals(50, cardFirst.getBalance());
+        assertEquals(150, cardSecond.getBalance());
+
+        verify(cardRepository).findByCardNumberIn(any());
+        verify(cardRepository, never()).findByCardNumberInOrderByIdAsc(any());
         verify(cardRepository, times(2)).save(any(Card.class));
-        verify(cardRepository, times(2)).findByCardNumber(any());
     }
 
     @Test
     void transfersBetweenCards_NotFoundCard() {
-        when(cardRepository.findByCardNumber("111"))
-                .thenReturn(Optional.empty());
+        transferProperties.setMode(TransferProperties.Mode.PESSIMISTIC);
+        runTransfersInPlace();
+        when(cardRepository.findByCardNumberInOrderByIdAsc(List.of("1111 1111 1111 1119", cardSecond.getCardNumber())))
+                .thenReturn(List.of(cardSecond));
         when(userService.getCurrentUser())
                 .thenReturn(user);
 
         assertThrows(NotFoundException.class, () ->
-                cardService.transfersBetweenCards("111", cardSecond.getCardNumber(), 50));
+                cardService.transfersBetweenCards("1111 1111 1111 1119", cardSecond.getCardNumber(), 50));
 
         verify(userService).getCurrentUser();
         verify(cardRepository, never()).save(any(Card.class));
-        verify(cardRepository).findByCardNumber(any());
+        verify(cardRepository).findByCardNumberInOrderByIdAsc(any());
     }
 
     @Test
     void transfersBetweenCards_UserIsNotCardholder() {
-        User igor = new User(1L, "Igorr", "khjgcfgcvhjbjas", Role.USER);
+        transferProperties.setMode(TransferProperties.Mode.PESSIMISTIC);
+
+        User igor = new User(3L, "Igorr", "khjgcfgcvhjbjas", Role.USER);
         Card card = new Card(3L, "1111 1111 1111 1114", igor, "12/26",
                 CardStatus.ACTIVE, 100);
 
-        when(cardRepository.findByCardNumber(card.getCardNumber()))
-                .thenReturn(Optional.of(card));
-        when(cardRepository.findByCardNumber(cardSecond.getCardNumber()))
-                .thenReturn(Optional.of(cardSecond));
+        runTransfersInPlace();
+        when(cardRepository.findByCardNumberInOrderByIdAsc(List.of(card.getCardNumber(),
+                cardSecond.getCardNumber())))
+                .thenReturn(List.of(cardSecond, card));
         when(userService.getCurrentUser())
                 .thenReturn(user);
 
@@ -370,18 +544,20 @@ public class CardServiceTest {
 
         verify(userService).getCurrentUser();
         verify(cardRepository, never()).save(any(Card.class));
-        verify(cardRepository, times(2)).findByCardNumber(any());
+        verify(cardRepository).findByCardNumberInOrderByIdAsc(any());
     }
 
     @Test
     void transfersBetweenCards_CardBlocked() {
+        transferProperties.setMode(TransferProperties.Mode.PESSIMISTIC);
+
         Card card = new Card(3L, "1111 1111 1111 1113", user, "12/26",
                 CardStatus.BLOCKED, 100);
 
-        when(cardRepository.findByCardNumber(card.getCardNumber()))
-                .thenReturn(Optional.of(card));
-        when(cardRepository.findByCardNumber(cardSecond.getCardNumber()))
-                .thenReturn(Optional.of(cardSecond));
+        runTransfersInPlace();
+        when(cardRepository.findByCardNumberInOrderByIdAsc(List.of(card.getCardNumber(),
+                cardSecond.getCardNumber())))
+                .thenReturn(List.of(cardSecond, card));
         when(userService.getCurrentUser())
                 .thenReturn(user);
 
@@ -390,15 +566,16 @@ public class CardServiceTest {
 
         verify(userService).getCurrentUser();
         verify(cardRepository, never()).save(any(Card.class));
-        verify(cardRepository, times(2)).findByCardNumber(any());
+        verify(cardRepository).findByCardNumberInOrderByIdAsc(any());
     }
 
     @Test
     void transfersBetweenCards_NotEnoughMoney() {
-        when(cardRepository.findByCardNumber(cardFirst.getCardNumber()))
-                .thenReturn(Optional.of(cardFirst));
-        when(cardRepository.findByCardNumber(cardSecond.getCardNumber()))
-                .thenReturn(Optional.of(cardSecond));
+        transferProperties.setMode(TransferProperties.Mode.PESSIMISTIC);
+        runTransfersInPlace();
+        when(cardRepository.findByCardNumberInOrderByIdAsc(List.of(cardFirst.getCardNumber(),
+                cardSecond.getCardNumber())))
+                .thenReturn(List.of(cardFirst, cardSecond));
         when(userService.getCurrentUser())
                 .thenReturn(user);
 
@@ -407,21 +584,290 @@ public class CardServiceTest {
 
         verify(userService).getCurrentUser();
         verify(cardRepository, never()).save(any(Card.class));
-        verify(cardRepository, times(2)).findByCardNumber(any());
+        verify(cardRepository).findByCardNumberInOrderByIdAsc(any());
     }
 
     @Test
-    void getBalance_Successful() {
+    void transfersBetweenCards_ConditionalUpdate() {
+        when(userService.getCurrentUser())
+                .thenReturn(user);
+        runTransfersInPlace();
+        when(cardRepository.debit(cardFirst.getCardNumber(), user.getId(), 50))
+                .thenReturn(1);
+        when(cardRepository.credit(cardSecond.getCardNumber(), user.getId(), 50))
+                .thenReturn(1);
+
+        cardService.transfersBetweenCards(cardFirst.getCardNumber(), cardSecond.getCardNumber(), 50);
+
+        InOrder inOrder = inOrder(cardRepository);
+        inOrder.verify(cardRepository).debit(cardFirst.getCardNumber(), user.getId(), 50);
+        inOrder.verify(cardRepository).credit(cardSecond.getCardNumber(), user.getId(), 50);
+        verify(cardRepository, never()).findByCardNumber(any());
+        verify(cardRepository, never()).save(any(Card.class));
+    }
+
+    @Test
+    void transfersBetweenCards_IdempotencyKeyRegistered() {
+        IdempotencyKey key = newIdempotencyKey(50);
+        when(userService.getCurrentUser())
+                .thenReturn(user);
+        runTransfersInPlace();
+        when(idempotencyService.newKey(user.getId(), "key-1", cardFirst.getCardNumber(),
+                cardSecond.getCardNumber(), 50))
+                .thenReturn(key);
+        when(idempotencyService.register(key))
+                .thenReturn(true);
+        when(cardRepository.debit(cardFirst.getCardNumber(), user.getId(), 50))
+                .thenReturn(1);
+        when(cardRepository.credit(cardSecond.getCardNumber(), user.getId(), 50))
+                .thenReturn(1);
+
+        cardService.transfersBetweenCards(cardFirst.getCardNumber(), cardSecond.getCardNumber(), 50, "key-1");
+
+        InOrder inOrder = inOrder(idempotencyService, cardRepository);
+        inOrder.verify(idempotencyService).register(key);
+        inOrder.verify(cardRepository).debit(cardFirst.getCardNumber(), user.getId(), 50);
+        inOrder.verify(cardRepository).credit(cardSecond.getCardNumber(), user.getId(), 50);
+        inOrder.verify(idempotencyService).remember(key);
+    }
+
+    @Test
+    void transfersBetweenCards_IdempotencyKeyAlreadyStored() {
+        IdempotencyKey key = newIdempotencyKey(50);
+        when(userService.getCurrentUser())
+                .thenReturn(user);
+        runTransfersInPlace();
+        when(idempotencyService.newKey(user.getId(), "key-1", cardFirst.getCardNumber(),
+                cardSecond.getCardNumber(), 50))
+                .thenReturn(key);
+        when(idempotencyService.register(key))
+                .thenReturn(false);
+
+        cardService.transfersBetweenCards(cardFirst.getCardNumber(), cardSecond.getCardNumber(), 50, "key-1");
+
+        verify(cardRepository, never()).debit(any(), any(), anyLong());
+        verify(cardRepository, never()).credit(any(), any(), anyLong());
+        verify(idempotencyService).remember(key);
+    }
+
+    @Test
+    void transfersBetweenCards_RejectionStoredUnderIdempotencyKey() {
+        IdempotencyKey key = newIdempotencyKey(500);
+        when(userService.getCurrentUser())
+                .thenReturn(user);
+        runTransfersInPlace();
+        when(idempotencyService.newKey(user.getId(), "key-1", cardFirst.getCardNumber(),
+                cardSecond.getCardNumber(), 500))
+                .thenReturn(key);
+        when(idempotencyService.register(key))
+                .thenReturn(true);
+        when(cardRepository.debit(cardFirst.getCardNumber(), user.getId(), 500))
+                .thenReturn(0);
         when(cardRepository.findByCardNumber(cardFirst.getCardNumber()))
                 .thenReturn(Optional.of(cardFirst));
+        when(idempotencyService.reject(eq(key), any()))
+                .thenReturn(true);
+
+        CardException e = assertThrows(CardException.class, () -> cardService.transfersBetweenCards(
+                cardFirst.getCardNumber(), cardSecond.getCardNumber(), 500, "key-1"));
+
+        assertEquals("Недостаточно средств на карте", e.getMessage());
+        verify(idempotencyService).reject(key, e);
+        verify(cardRepository, never()).credit(any(), any(), anyLong());
+        verify(idempotencyService, never()).remember(any());
+    }
+
+    @Test
+    void transfersBetweenCards_IdempotencyKeyCached() {
+        IdempotencyKey key = newIdempotencyKey(50);
         when(userService.getCurrentUser())
                 .thenReturn(user);
+        when(idempotencyService.newKey(user.getId(), "key-1", cardFirst.getCardNumber(),
+                cardSecond.getCardNumber(), 50))
+                .thenReturn(key);
+        when(idempotencyService.isCompleted(key))
+                .thenReturn(true);
 
-        double balance = cardService.getBalance(cardFirst.getCardNumber());
+        cardService.transfersBetweenCards(cardFirst.getCardNumber(), cardSecond.getCardNumber(), 50, "key-1");
 
-        assertEquals(balance, cardFirst.getBalance());
+        verify(transferExecutor, never()).execute(any(Runnable.class));
+        verify(idempotencyService, never()).register(any());
+    }
 
-        verify(userService).getCurrentUser();
+    @Test
+    void transfersBetweenCards_ConditionalUpdateInCardNumberOrder() {
+        when(userService.getCurrentUser())
+                .thenReturn(user);
+        runTransfersInPlace();
+        when(cardRepository.credit(cardFirst.getCardNumber(), user.getId(), 50))
+                .thenReturn(1);
+        when(cardRepository.debit(cardSecond.getCardNumber(), user.getId(), 50))
+                .thenReturn(1);
+
+        cardService.transfersBetweenCards(cardSecond.getCardNumber(), cardFirst.getCardNumber(), 50);
+
+        InOrder inOrder = inOrder(cardRepository);
+        inOrder.verify(cardRepository).credit(cardFirst.getCardNumber(), user.getId(), 50);
+        inOrder.verify(cardRepository).debit(cardSecond.getCardNumber(), user.getId(), 50);
+    }
+
+    @Test
+    void transfersBetweenCards_ConditionalUpdateNotEnoughMoney() {
+        when(userService.getCurrentUser())
+                .thenReturn(user);
+        runTransfersInPlace();
+        when(cardRepository.debit(cardFirst.getCardNumber(), user.getId(), 150))
+                .thenReturn(0);
+        when(cardRepository.findByCardNumber(cardFirst.getCardNumber()))
+                .thenReturn(Optional.of(cardFirst));
+
+        assertThrows(CardException.class, () ->
+                cardService.transfersBetweenCards(cardFirst.getCardNumber(), cardSecond.getCardNumber(), 150));
+
+        verify(cardRepository, never()).credit(any(), any(), anyLong());
+    }
+
+    @Test
+    void transfersBetweenCards_ConditionalUpdateNotFoundCard() {
+        when(userService.getCurrentUser())
+                .thenReturn(user);
+        runTransfersInPlace();
+        when(cardRepository.debit("1111 1111 1111 1110", user.getId(), 50))
+                .thenReturn(0);
+        when(cardRepository.findByCardNumber("1111 1111 1111 1110"))
+                .thenReturn(Optional.empty());
+
+        assertThrows(NotFoundException.class, () ->
+                cardService.transfersBetweenCards("1111 1111 1111 1110", cardSecond.getCardNumber(), 50));
+
+        verify(cardRepository, never()).credit(any(), any(), anyLong());
+    }
+
+    @Test
+    void transfersBetweenCards_ConditionalUpdateRecipientBlocked() {
+        Card card = new Card(3L, "1111 1111 1111 1113", user, "12/26",
+                CardStatus.BLOCKED, 100);
+
+        when(userService.getCurrentUser())
+                .thenReturn(user);
+        runTransfersInPlace();
+        when(cardRepository.debit(cardFirst.getCardNumber(), user.getId(), 50))
+                .thenReturn(1);
+        when(cardRepository.credit(card.getCardNumber(), user.getId(), 50))
+                .thenReturn(0);
+        when(cardRepository.findByCardNumber(card.getCardNumber()))
+                .thenReturn(Optional.of(card));
+
+        assertThrows(CardException.class, () ->
+                cardService.transfersBetweenCards(cardFirst.getCardNumber(), card.getCardNumber(), 50));
+    }
+
+    @Test
+    void transfersBetweenCards_IncorrectCardNumberRejectedBeforeIdempotencyKey() {
+        when(userService.getCurrentUser())
+                .thenReturn(user);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () ->
+                cardService.transfersBetweenCards("1111 1111 1111 1111 1111", cardSecond.getCardNumber(), 50,
+                        "key-1"));
+
+        assertEquals("Указан некорректный номер карты", e.getMessage());
+        verifyNoInteractions(idempotencyService, transferExecutor);
+    }
+
+    @Test
+    void transfersBetweenCards_AmountIsNotPositive() {
+        when(userService.getCurrentUser())
+                .thenReturn(user);
+
+        assertThrows(CardException.class, () ->
+                cardService.transfersBetweenCards(cardFirst.getCardNumber(), cardSecond.getCardNumber(), -50));
+
+        verify(transferExecutor, never()).execute(any(Runnable.class));
+    }
+
+    @Test
+    void transfersBetweenCardsBatch_Successful() {
+        List<TransferRequest> transfers = List.of(
+                new TransferRequest(cardFirst.getCardNumber(), cardSecond.getCardNumber(), "0.30"),
+                new TransferRequest(cardSecond.getCardNumber(), cardFirst.getCardNumber(), "0.10"));
+
+        when(userService.getCurrentUser())
+                .thenReturn(user);
+        runBatchesInPlace();
+        when(cardRepository.findByCardNumberInOrderByIdAsc(Set.of(cardFirst.getCardNumber(),
+                cardSecond.getCardNumber())))
+                .thenReturn(List.of(cardFirst, cardSecond));
+
+        List<TransferResultDto> results = cardService.transfersBetweenCards(transfers);
+
+        assertEquals(2, results.size());
+        assertTrue(results.stream().allMatch(TransferResultDto::isCompleted));
+        assertEquals(80, cardFirst.getBalance());
+        assertEquals(120, cardSecond.getBalance());
+
+        verify(cardRepository).findByCardNumberInOrderByIdAsc(any());
+        verify(cardRepository, never()).findByCardNumber(any());
+        verify(cardRepository, never()).save(any(Card.class));
+    }
+
+    @Test
+    void transfersBetweenCardsBatch_OptimisticModeDoesNotLockCards() {
+        transferProperties.setMode(TransferProperties.Mode.OPTIMISTIC);
+        List<TransferRequest> transfers = List.of(
+                new TransferRequest(cardFirst.getCardNumber(), cardSecond.getCardNumber(), "0.30"));
+
+        when(userService.getCurrentUser())
+                .thenReturn(user);
+        runBatchesInPlace();
+        when(cardRepository.findByCardNumberIn(Set.of(cardFirst.getCardNumber(), cardSecond.getCardNumber())))
+                .thenReturn(List.of(cardFirst, cardSecond));
+
+        List<TransferResultDto> results = cardService.transfersBetweenCards(transfers);
+
+        assertTrue(results.get(0).isCompleted());
+        assertEquals(70, cardFirst.getBalance());
+        assertEquals(130, cardSecond.getBalance());
+
+        verify(cardRepository, never()).findByCardNumberInOrderByIdAsc(any());
+    }
+
+    @Test
+    void transfersBetweenCardsBatch_PartiallyRejected() {
+        List<TransferRequest> transfers = List.of(
+                new TransferRequest(cardFirst.getCardNumber(), cardSecond.getCardNumber(), "0.70"),
+                new TransferRequest(cardFirst.getCardNumber(), cardSecond.getCardNumber(), "0.70"),
+                new TransferRequest(cardFirst.getCardNumber(), "1111 1111 1111 1119", "0.10"),
+                new TransferRequest(cardFirst.getCardNumber(), cardSecond.getCardNumber(), "0.101"));
+
+        when(userService.getCurrentUser())
+                .thenReturn(user);
+        runBatchesInPlace();
+        when(cardRepository.findByCardNumberInOrderByIdAsc(any()))
+                .thenReturn(List.of(cardFirst, cardSecond));
+
+        List<TransferResultDto> results = cardService.transfersBetweenCards(transfers);
+
+        assertEquals(List.of(true, false, false, false),
+                results.stream().map(TransferResultDto::isCompleted).toList());
+        assertEquals("Недостаточно средств на карте", results.get(1).getMessage());
+        assertEquals("Карта не найдена", results.get(2).getMessage());
+        assertEquals(30, cardFirst.getBalance());
+        assertEquals(170, cardSecond.getBalance());
+    }
+
+    @Test
+    void getBalance_Successful() {
+        when(cardRepository.findByCardNumber(cardFirst.getCardNumber()))
+                .thenReturn(Optional.of(cardFirst));
+        when(userService.getCurrentUserId())
+                .thenReturn(user.getId());
+
+        BigDecimal balance = cardService.getBalance(cardFirst.getCardNumber());
+
+        assertEquals(new BigDecimal("1.00"), balance);
+
+        verify(userService).getCurrentUserId();
         verify(cardRepository).findByCardNumber(any());
     }
 
@@ -429,12 +875,12 @@ public class CardServiceTest {
     void getBalance_CardBlocked() {
         when(cardRepository.findByCardNumber(cardBlock.getCardNumber()))
                 .thenReturn(Optional.of(cardBlock));
-        when(userService.getCurrentUser())
-                .thenReturn(user);
+        when(userService.getCurrentUserId())
+                .thenReturn(user.getId());
 
         assertThrows(CardException.class, () -> cardService.getBalance(cardBlock.getCardNumber()));
 
-        verify(userService).getCurrentUser();
+        verify(userService).getCurrentUserId();
         verify(cardRepository).findByCardNumber(any());
     }
 
@@ -444,12 +890,30 @@ public class CardServiceTest {
 
         when(cardRepository.findByCardNumber(cardBlock.getCardNumber()))
                 .thenReturn(Optional.of(cardBlock));
-        when(userService.getCurrentUser())
-                .thenReturn(anton);
+        when(userService.getCurrentUserId())
+                .thenReturn(anton.getId());
 
         assertThrows(AccessException.class, () -> cardService.getBalance(cardBlock.getCardNumber()));
 
-        verify(userService).getCurrentUser();
+        verify(userService).getCurrentUserId();
         verify(cardRepository).findByCardNumber(any());
     }
+
+    private IdempotencyKey newIdempotencyKey(long amount) {
+        return new IdempotencyKey(new IdempotencyKeyId(user.getId(), "key-1"), cardFirst.getCardNumber(),
+                cardSecond.getCardNumber(), amount, LocalDateTime.now());
+    }
+
+    private void runTransfersInPlace() {
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(transferExecutor).execute(any(Runnable.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void runBatchesInPlace() {
+        when(transferExecutor.executeBatch(any(Supplier.class)))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(0).get());
+    }
 }
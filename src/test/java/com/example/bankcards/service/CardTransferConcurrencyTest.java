@@ -0,0 +1,126 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.config.TransferProperties;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.CardException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ActiveProfiles({"test", "h2"})
+@SpringBootTest
+public class CardTransferConcurrencyTest {
+    private static final int THREADS = 8;
+    private static final int TRANSFERS_PER_THREAD = 200;
+    private static final long INITIAL_BALANCE = 100_000;
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TransferProperties transferProperties;
+
+    private final List<String> cardNumbers = new ArrayList<>();
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(new User(null, "Anton", "bgyfygvbhjnug", Role.USER));
+        for (int i = 1; i <= 4; i++) {
+            Card card = cardRepository.save(new Card(null, "1111 1111 1111 111" + i, user, "12/26",
+                    CardStatus.ACTIVE, INITIAL_BALANCE));
+            cardNumbers.add(card.getCardNumber());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        cardRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void transfersBetweenCards_ConcurrentTransfersKeepTotalBalance() throws Exception {
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        double retriesBefore = counter("bank.transfer.retries");
+        double abortsBefore = counter("bank.transfer.aborts");
+
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                SecurityContextHolder.getContext().setAuthentication(
+                        new UsernamePasswordAuthenticationToken(user.getUsername(), null));
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                start.await();
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    int from = random.nextInt(cardNumbers.size());
+                    int to = (from + 1 + random.nextInt(cardNumbers.size() - 1)) % cardNumbers.size();
+                    try {
+                        cardService.transfersBetweenCards(cardNumbers.get(from), cardNumbers.get(to),
+                                random.nextLong(1, 10_000));
+                        completed.incrementAndGet();
+                    } catch (CardException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                SecurityContextHolder.clearContext();
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        List<Card> cards = cardRepository.findAll();
+        long total = cards.stream().mapToLong(Card::getBalance).sum();
+        double retries = counter("bank.transfer.retries") - retriesBefore;
+        double aborts = counter("bank.transfer.aborts") - abortsBefore;
+
+        assertEquals(THREADS * TRANSFERS_PER_THREAD, completed.get() + rejected.get());
+        assertEquals(INITIAL_BALANCE * cardNumbers.size(), total);
+        assertTrue(cards.stream().allMatch(card -> card.getBalance() >= 0));
+        // Каждый перевод повторяется не больше max-attempts - 1 раз, а отказ после исчерпания попыток
+        // считается отклоненным переводом
+        assertTrue(retries <= (double) (transferProperties.getMaxAttempts() - 1) * THREADS * TRANSFERS_PER_THREAD);
+        assertTrue(aborts <= rejected.get());
+    }
+
+    private double counter(String name) {
+        return meterRegistry.find(name).counters().stream().mapToDouble(Counter::count).sum();
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.bankcards.service;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles({"test", "h2"})
+@SpringBootTest(properties = {"bank.transfer.mode=optimistic", "bank.transfer.max-attempts=20"})
+public class CardTransferOptimisticConcurrencyTest extends CardTransferConcurrencyTest {
+}
@@ -0,0 +1,142 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.config.IdempotencyProperties;
+import com.example.bankcards.entity.IdempotencyKey;
+import com.example.bankcards.exception.CardException;
+import com.example.bankcards.exception.NotFoundException;
+import com.example.bankcards.repository.IdempotencyKeyRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class IdempotencyServiceTest {
+    @Mock
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = new IdempotencyService(idempotencyKeyRepository, new IdempotencyProperties(),
+                meterRegistry);
+    }
+
+    @Test
+    void newKey_TooLong() {
+        assertThrows(CardException.class, () ->
+                idempotencyService.newKey(1L, "k".repeat(65), "1111 1111 1111 1111", "1111 1111 1111 1112", 50));
+    }
+
+    @Test
+    void register_NewKey() {
+        IdempotencyKey key = newKey(50);
+        when(idempotencyKeyRepository.insertIfAbsent(1L, "key-1", "1111 1111 1111 1111", "1111 1111 1111 1112",
+                50, key.getCreatedAt(), null, null))
+                .thenReturn(1);
+
+        assertTrue(idempotencyService.register(key));
+        assertFalse(idempotencyService.isCompleted(key));
+
+        verify(idempotencyKeyRepository, never()).findById(any());
+    }
+
+    @Test
+    void register_StoredKey() {
+        IdempotencyKey key = newKey(50);
+        when(idempotencyKeyRepository.insertIfAbsent(any(), any(), any(), any(), anyLong(), any(), any(), any()))
+                .thenReturn(0);
+        when(idempotencyKeyRepository.findById(key.getId()))
+                .thenReturn(Optional.of(newKey(50)));
+
+        assertFalse(idempotencyService.register(key));
+        assertTrue(idempotencyService.isCompleted(key));
+    }
+
+    @Test
+    void register_StoredKeyForAnotherTransfer() {
+        IdempotencyKey key = newKey(50);
+        when(idempotencyKeyRepository.insertIfAbsent(any(), any(), any(), any(), anyLong(), any(), any(), any()))
+                .thenReturn(0);
+        when(idempotencyKeyRepository.findById(key.getId()))
+                .thenReturn(Optional.of(newKey(70)));
+
+        assertThrows(CardException.class, () -> idempotencyService.register(key));
+    }
+
+    @Test
+    void register_StoredRejection() {
+        IdempotencyKey key = newKey(50);
+        when(idempotencyKeyRepository.insertIfAbsent(any(), any(), any(), any(), anyLong(), any(), any(), any()))
+                .thenReturn(0);
+        when(idempotencyKeyRepository.findById(key.getId()))
+                .thenReturn(Optional.of(newKey(50).withRejection(IdempotencyKey.Rejection.NOT_FOUND,
+                        "Карта не найдена")));
+
+        NotFoundException e = assertThrows(NotFoundException.class, () -> idempotencyService.register(key));
+
+        assertEquals("Карта не найдена", e.getMessage());
+        assertThrows(NotFoundException.class, () -> idempotencyService.isCompleted(key));
+    }
+
+    @Test
+    void reject_StoresRejection() {
+        IdempotencyKey key = newKey(50);
+        CardException rejection = new CardException("Недостаточно средств на карте");
+        when(idempotencyKeyRepository.insertIfAbsent(1L, "key-1", "1111 1111 1111 1111", "1111 1111 1111 1112",
+                50, key.getCreatedAt(), "REJECTED", "Недостаточно средств на карте"))
+                .thenReturn(1);
+
+        assertTrue(idempotencyService.reject(key, rejection));
+        CardException replayed = assertThrows(CardException.class, () -> idempotencyService.isCompleted(key));
+
+        assertEquals("Недостаточно средств на карте", replayed.getMessage());
+        verify(idempotencyKeyRepository, never()).findById(any());
+    }
+
+    @Test
+    void reject_KeyStoredByCompletedTransfer() {
+        IdempotencyKey key = newKey(50);
+        when(idempotencyKeyRepository.insertIfAbsent(any(), any(), any(), any(), anyLong(), any(), any(), any()))
+                .thenReturn(0);
+        when(idempotencyKeyRepository.findById(key.getId()))
+                .thenReturn(Optional.of(newKey(50)));
+
+        // Параллельный запрос с тем же ключом успел выполнить перевод, поэтому повторяется его исход
+        assertFalse(idempotencyService.reject(key, new CardException("Недостаточно средств на карте")));
+
+        assertTrue(idempotencyService.isCompleted(key));
+    }
+
+    @Test
+    void isCompleted_RememberedKey() {
+        idempotencyService.remember(newKey(50));
+
+        assertTrue(idempotencyService.isCompleted(newKey(50)));
+        assertThrows(CardException.class, () -> idempotencyService.isCompleted(newKey(70)));
+        assertEquals(1, meterRegistry.get("cache.size").tag("cache", "idempotency_keys").gauge().value());
+
+        verifyNoInteractions(idempotencyKeyRepository);
+    }
+
+    private IdempotencyKey newKey(long amount) {
+        return idempotencyService.newKey(1L, "key-1", "1111 1111 1111 1111", "1111 1111 1111 1112", amount);
+    }
+}
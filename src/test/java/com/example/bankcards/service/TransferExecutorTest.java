@@ -0,0 +1,146 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.config.TransferProperties;
+import com.example.bankcards.exception.CardException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionTimedOutException;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TransferExecutorTest {
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private TransferExecutor transferExecutor;
+
+    @BeforeEach
+    void setUp() {
+        TransferProperties properties = new TransferProperties();
+        properties.setMaxAttempts(3);
+        properties.setBackoff(Duration.ofMillis(1));
+        properties.setMaxBackoff(Duration.ofMillis(2));
+        transferExecutor = new TransferExecutor(transactionManager, properties, meterRegistry);
+    }
+
+    @Test
+    void execute_Successful() {
+        AtomicInteger calls = new AtomicInteger();
+
+        transferExecutor.execute(calls::incrementAndGet);
+
+        assertEquals(1, calls.get());
+
+        verify(transactionManager).getTransaction(argThat((TransactionDefinition definition) ->
+                definition.getTimeout() == 5));
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void executeBatch_UsesBatchTimeout() {
+        assertEquals(1, transferExecutor.executeBatch(() -> 1));
+
+        verify(transactionManager).getTransaction(argThat((TransactionDefinition definition) ->
+                definition.getTimeout() == 30));
+    }
+
+    @Test
+    void execute_TransactionTimedOutIsNotRetried() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(CardException.class, () -> transferExecutor.execute(() -> {
+            calls.incrementAndGet();
+            throw new TransactionTimedOutException("deadline exceeded");
+        }));
+
+        assertEquals(1, calls.get());
+        assertEquals(0, meterRegistry.counter("bank.transfer.retries", "mode", "conditional").count());
+        assertEquals(1, meterRegistry.counter("bank.transfer.aborts", "mode", "conditional").count());
+
+        verify(transactionManager).rollback(any());
+    }
+
+    @Test
+    void execute_RetryAfterLockTimeout() {
+        AtomicInteger calls = new AtomicInteger();
+
+        transferExecutor.execute(() -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new CannotAcquireLockException("lock timeout");
+            }
+        });
+
+        assertEquals(2, calls.get());
+        assertEquals(1, meterRegistry.counter("bank.transfer.retries", "mode", "conditional").count());
+
+        verify(transactionManager).rollback(any());
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void execute_RetryAfterVersionConflict() {
+        AtomicInteger calls = new AtomicInteger();
+        doThrow(new OptimisticLockingFailureException("version conflict"))
+                .doNothing()
+                .when(transactionManager).commit(any());
+
+        transferExecutor.execute(calls::incrementAndGet);
+
+        assertEquals(2, calls.get());
+        assertEquals(1, meterRegistry.counter("bank.transfer.retries", "mode", "conditional").count());
+        assertEquals(0, meterRegistry.counter("bank.transfer.aborts", "mode", "conditional").count());
+
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void execute_AttemptsExhausted() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(CardException.class, () -> transferExecutor.execute(() -> {
+            calls.incrementAndGet();
+            throw new QueryTimeoutException("statement timeout");
+        }));
+
+        assertEquals(3, calls.get());
+        assertEquals(2, meterRegistry.counter("bank.transfer.retries", "mode", "conditional").count());
+        assertEquals(1, meterRegistry.counter("bank.transfer.aborts", "mode", "conditional").count());
+
+        verify(transactionManager, times(3)).rollback(any());
+        verify(transactionManager, never()).commit(any());
+    }
+
+    @Test
+    void execute_BusinessErrorIsNotRetried() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(CardException.class, () -> transferExecutor.execute(() -> {
+            calls.incrementAndGet();
+            throw new CardException("Недостаточно средств на карте");
+        }));
+
+        assertEquals(1, calls.get());
+
+        verify(transactionManager).rollback(any());
+    }
+}
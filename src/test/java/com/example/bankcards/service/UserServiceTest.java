@@ -1,16 +1,21 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.config.ListingProperties;
+import com.example.bankcards.config.UserCacheProperties;
 import com.example.bankcards.dto.UserDto;
 import com.example.bankcards.entity.Role;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.NotFoundException;
 import com.example.bankcards.exception.UserException;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.TokenRevocationService;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.springframework.data.domain.*;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContext;
@@ -18,11 +23,18 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -31,12 +43,22 @@ public class UserServiceTest {
     @Mock
     private UserRepository userRepository;
 
-    @InjectMocks
+    @Mock
+    private TokenRevocationService tokenRevocationService;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     private UserService userService;
 
     User newUser = new User(null, "Anton", "bgyfygvbhjnug", Role.USER);
     User user = new User(1L, "Anton", "bgyfygvbhjnug", Role.USER);
 
+    @BeforeEach
+    void setUp() {
+        userService = new UserService(userRepository, tokenRevocationService,
+                new TotalCountCache(new ListingProperties(), meterRegistry), new UserCacheProperties(), meterRegistry);
+    }
+
     @Test
     void createUser_Successful() {
         when(userRepository.existsByUsername(newUser.getUsername()))
@@ -64,19 +86,41 @@ public class UserServiceTest {
 
     @Test
     void getUsers_Successful() {
-        Page<User> page = new PageImpl<>(List.of(user), PageRequest.of(0, 10), 1);
+        Slice<UserDto> slice = new SliceImpl<>(List.of(new UserDto(user.getUsername(), user.getRole())),
+                PageRequest.of(0, 10), false);
 
-        when(userRepository.findAll(PageRequest.of(0, 10,
+        when(userRepository.findUserDtos(PageRequest.of(0, 10,
                 Sort.by(Sort.Direction.ASC, "id"))))
-                .thenReturn(page);
+                .thenReturn(slice);
 
-        List<UserDto> users = userService.getUsers(0, 10, "id", "asc");
+        Slice<UserDto> users = userService.getUsers(0, 10, "id", "asc");
 
-        assertEquals(users.size(), 1);
-        assertEquals(users.get(0).getUsername(), user.getUsername());
-        assertEquals(users.get(0).getRole(), user.getRole());
+        assertEquals(users.getNumberOfElements(), 1);
+        assertEquals(users.getContent().get(0).getUsername(), user.getUsername());
+        assertEquals(users.getContent().get(0).getRole(), user.getRole());
+        assertEquals(users.hasNext(), false);
 
-        verify(userRepository).findAll(any(Pageable.class));
+        verify(userRepository).findUserDtos(any(Pageable.class));
+        verify(userRepository, never()).count();
+    }
+
+    @Test
+    void getUsers_UnindexedSortField() {
+        assertThrows(IllegalArgumentException.class, () -> userService.getUsers(0, 10, "role", "asc"));
+
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void countUsers_CountedOnceWithinTtl() {
+        when(userRepository.count())
+                .thenReturn(42L);
+
+        assertEquals(42, userService.countUsers());
+        assertEquals(42, userService.countUsers());
+        assertEquals(1, meterRegistry.get("bank.cache.load").tag("cache", "listing_totals").timer().count());
+
+        verify(userRepository, times(1)).count();
     }
 
     @Test
@@ -88,6 +132,7 @@ public class UserServiceTest {
 
         verify(userRepository).findByUsername(user.getUsername());
         verify(userRepository).delete(user);
+        verify(tokenRevocationService).revokeUser(user.getId());
     }
 
     @Test
@@ -99,6 +144,7 @@ public class UserServiceTest {
 
         verify(userRepository).findByUsername("igorr");
         verify(userRepository, never()).delete(any());
+        verify(tokenRevocationService, never()).revokeUser(any());
     }
 
     @Test
@@ -128,6 +174,76 @@ public class UserServiceTest {
         verify(userRepository).findByUsername(user.getUsername());
     }
 
+    @Test
+    void getByUsername_Cached() {
+        when(userRepository.findByUsername(user.getUsername()))
+                .thenReturn(Optional.of(user));
+
+        userService.getByUsername(user.getUsername());
+        userService.userDetailsService().loadUserByUsername(user.getUsername());
+        User anton = userService.getByUsername(user.getUsername());
+
+        assertEquals(user, anton);
+        assertEquals(2, meterRegistry.get("cache.gets").tag("cache", "users").tag("result", "hit")
+                .functionCounter().count());
+        assertEquals(1, meterRegistry.get("bank.cache.load").tag("cache", "users").timer().count());
+
+        verify(userRepository, times(1)).findByUsername(user.getUsername());
+    }
+
+    @Test
+    void getByUsername_ConcurrentMissesLoadOnce() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(userRepository.findByUsername(user.getUsername()))
+                .thenAnswer(invocation -> {
+                    loading.countDown();
+                    release.await(10, TimeUnit.SECONDS);
+                    return Optional.of(user);
+                });
+
+        try (ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<User>> users = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                users.add(requests.submit(() -> userService.getByUsername(user.getUsername())));
+            }
+            assertTrue(loading.await(10, TimeUnit.SECONDS));
+            release.countDown();
+            for (Future<User> loaded : users) {
+                assertEquals(user, loaded.get(10, TimeUnit.SECONDS));
+            }
+        }
+
+        verify(userRepository, times(1)).findByUsername(user.getUsername());
+    }
+
+    @Test
+    void getByUsername_InvalidatedAfterDelete() {
+        when(userRepository.findByUsername(user.getUsername()))
+                .thenReturn(Optional.of(user))
+                .thenReturn(Optional.empty());
+
+        userService.deleteUser(user.getUsername());
+
+        assertThrows(NotFoundException.class, () -> userService.getByUsername(user.getUsername()));
+
+        verify(userRepository, times(2)).findByUsername(user.getUsername());
+    }
+
+    @Test
+    void getByUsername_InvalidatedAfterCreate() {
+        when(userRepository.findByUsername(user.getUsername()))
+                .thenReturn(Optional.of(user));
+        when(userRepository.save(newUser))
+                .thenReturn(user);
+
+        userService.getByUsername(user.getUsername());
+        userService.createUser(newUser);
+        userService.getByUsername(user.getUsername());
+
+        verify(userRepository, times(2)).findByUsername(user.getUsername());
+    }
+
     @Test
     void getByUsername_UserNotFound() {
         when(userRepository.findByUsername("igorr"))
@@ -156,4 +272,20 @@ public class UserServiceTest {
 
         SecurityContextHolder.clearContext();
     }
+
+    @Test
+    void getCurrentUser_PrincipalFromToken() {
+        SecurityContext context = mock(SecurityContext.class);
+        SecurityContextHolder.setContext(context);
+
+        when(context.getAuthentication())
+                .thenReturn(new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+
+        assertEquals(user, userService.getCurrentUser());
+        assertEquals(user.getId(), userService.getCurrentUserId());
+
+        verifyNoInteractions(userRepository);
+
+        SecurityContextHolder.clearContext();
+    }
 }
@@ -0,0 +1,38 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.dto.NewCardDto;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CardFormatTest {
+    @Test
+    void isCardNumber() {
+        assertTrue(CardFormat.isCardNumber("1111 2222 3333 4444"));
+        assertFalse(CardFormat.isCardNumber("1111222233334444"));
+        assertFalse(CardFormat.isCardNumber("1111 2222 3333 444"));
+        assertFalse(CardFormat.isCardNumber(""));
+        assertFalse(CardFormat.isCardNumber(null));
+    }
+
+    @Test
+    void isValidityPeriod() {
+        assertTrue(CardFormat.isValidityPeriod("01/27"));
+        assertFalse(CardFormat.isValidityPeriod("13/27"));
+        assertFalse(CardFormat.isValidityPeriod("1/27"));
+        assertFalse(CardFormat.isValidityPeriod(null));
+    }
+
+    @Test
+    void check() {
+        assertNull(CardFormat.check(new NewCardDto("1111 2222 3333 4444", "Anton", "12/26")));
+        assertEquals(CardFormat.INVALID_CARD_NUMBER,
+                CardFormat.check(new NewCardDto("1111-2222-3333-4444", "Anton", "12/26")));
+        assertEquals(CardFormat.INVALID_VALIDITY_PERIOD,
+                CardFormat.check(new NewCardDto("1111 2222 3333 4444", "Anton", "12/2026")));
+        assertEquals("Не заполнены данные карты", CardFormat.check(null));
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.bankcards.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MoneyTest {
+    @Test
+    void parse_Successful() {
+        assertEquals(1234, Money.parse("12.34"));
+        assertEquals(1230, Money.parse("12.3"));
+        assertEquals(1200, Money.parse("12"));
+        assertEquals(1234, Money.parse("12,34"));
+        assertEquals(5, Money.parse(".05"));
+        assertEquals(-1234, Money.parse("-12.34"));
+    }
+
+    @Test
+    void parse_IncorrectValue() {
+        assertThrows(IllegalArgumentException.class, () -> Money.parse(""));
+        assertThrows(IllegalArgumentException.class, () -> Money.parse("."));
+        assertThrows(IllegalArgumentException.class, () -> Money.parse("12.345"));
+        assertThrows(IllegalArgumentException.class, () -> Money.parse("12a"));
+        assertThrows(IllegalArgumentException.class, () -> Money.parse("1e3"));
+    }
+
+    @Test
+    void parse_Overflow() {
+        assertThrows(ArithmeticException.class, () -> Money.parse("92233720368547758.08"));
+    }
+
+    @Test
+    void toDecimal_Successful() {
+        assertEquals(new BigDecimal("12.34"), Money.toDecimal(1234));
+        assertEquals(new BigDecimal("0.00"), Money.toDecimal(0));
+    }
+
+    @Test
+    void subtract_Overflow() {
+        assertThrows(ArithmeticException.class, () -> Money.subtract(Long.MIN_VALUE, 1));
+    }
+}
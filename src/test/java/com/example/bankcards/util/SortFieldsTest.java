@@ -0,0 +1,53 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.entity.CardStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SortFieldsTest {
+    private final SortFields sortFields = SortFields.of("cardStatus").andUnique("cardNumber");
+
+    @Test
+    void sort_FieldWithIdTieBreak() {
+        assertEquals(Sort.by(Sort.Direction.DESC, "cardStatus", "id"), sortFields.sort("cardStatus", "DESC"));
+        assertEquals(Sort.by(Sort.Direction.ASC, "cardStatus", "id"), sortFields.sort("cardStatus", "asc"));
+    }
+
+    @Test
+    void sort_UniqueFieldAndId() {
+        assertEquals(Sort.by(Sort.Direction.ASC, "cardNumber"), sortFields.sort("cardNumber", "asc"));
+        assertEquals(Sort.by(Sort.Direction.DESC, "id"), sortFields.sort("id", "desc"));
+    }
+
+    @Test
+    void sort_Precomputed() {
+        assertSame(sortFields.sort("cardStatus", "asc"), sortFields.sort("cardStatus", "asc"));
+    }
+
+    @Test
+    void orderBy_AlwaysEndsWithId() {
+        SortFields cardSortFields = CardSortFields.SORT_FIELDS;
+
+        assertEquals("c.card_status DESC, c.id DESC", cardSortFields.orderBy("cardStatus", "desc"));
+        assertEquals("c.card_number ASC, c.id ASC", cardSortFields.orderBy("cardNumber", "asc"));
+        assertEquals("c.id DESC", cardSortFields.orderBy("id", "DESC"));
+    }
+
+    @Test
+    void key_ParsedByField() {
+        SortFields cardSortFields = CardSortFields.SORT_FIELDS;
+
+        assertEquals(CardStatus.BLOCKED, cardSortFields.key("cardStatus", "BLOCKED"));
+        assertEquals(5L, cardSortFields.key("id", "5"));
+        assertThrows(IllegalArgumentException.class, () -> cardSortFields.key("balance", "100"));
+    }
+
+    @Test
+    void sort_UnknownField() {
+        assertThrows(IllegalArgumentException.class, () -> sortFields.sort("cardholder.password", "asc"));
+    }
+}